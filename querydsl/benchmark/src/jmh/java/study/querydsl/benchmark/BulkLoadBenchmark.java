@@ -0,0 +1,79 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.service.BulkLoadReport;
+import study.querydsl.service.MemberBulkLoader;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 회원 1만 명 적재: 건마다 persist/flush 하는 방식과 MemberBulkLoader 비교
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class BulkLoadBenchmark {
+    private static final String TEAM_NAME = "bulkTeam";
+    private static final int ROWS = 10_000;
+
+    private MemberDataset dataset;
+    private EntityManager em;
+    private List<MemberDto> rows;
+
+    @Setup
+    public void setUp(MemberDataset dataset) {
+        this.dataset = dataset;
+        this.em = dataset.bean(EntityManager.class);
+        rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new MemberDto("bulk" + i, i % 100));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        dataset.transactionTemplate().executeWithoutResult(status -> {
+            em.createQuery("delete from Member m where m.team.id in (select t.id from Team t where t.name = :name)")
+                    .setParameter("name", TEAM_NAME)
+                    .executeUpdate();
+            em.createQuery("delete from Team t where t.name = :name")
+                    .setParameter("name", TEAM_NAME)
+                    .executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public void perEntity() {
+        dataset.transactionTemplate().executeWithoutResult(status -> {
+            Team team = new Team(TEAM_NAME);
+            em.persist(team);
+            for (MemberDto row : rows) {
+                em.persist(new Member(row.getUsername(), row.getAge(), team));
+                em.flush();
+            }
+            em.clear();
+        });
+    }
+
+    @Benchmark
+    public BulkLoadReport bulkLoader() {
+        return dataset.bean(MemberBulkLoader.class).load(Map.of(TEAM_NAME, rows));
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.QMember;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.domain.QTeam.team;
+
+// 회원 500명의 팀 이름을 읽을 때 지연 로딩과 페치 조인 비교
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FetchJoinBenchmark {
+    private static final QMember member = new QMember("member1");
+    private static final int LIMIT = 500;
+
+    @Benchmark
+    public void lazyLoading(MemberDataset dataset, Blackhole blackhole) {
+        dataset.transactionTemplate().executeWithoutResult(status -> {
+            List<Member> members = dataset.query()
+                    .selectFrom(member)
+                    .limit(LIMIT)
+                    .fetch();
+            for (Member m : members) {
+                blackhole.consume(m.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void fetchJoin(MemberDataset dataset, Blackhole blackhole) {
+        dataset.transactionTemplate().executeWithoutResult(status -> {
+            List<Member> members = dataset.query()
+                    .selectFrom(member)
+                    .join(member.team, team).fetchJoin()
+                    .limit(LIMIT)
+                    .fetch();
+            for (Member m : members) {
+                blackhole.consume(m.getTeam().getName());
+            }
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.index.MemberColumnIndex;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 모양별 JPQL 템플릿 검색(DB)과 메모리 열 인덱스 검색의 처리량 비교
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberColumnIndexBenchmark {
+    private MemberSearchCondition teamAndAge;
+    private MemberSearchCondition username;
+    private MemberRepository memberRepository;
+    private MemberColumnIndex memberColumnIndex;
+
+    @Setup
+    public void setUp(MemberDataset dataset) {
+        teamAndAge = new MemberSearchCondition();
+        teamAndAge.setTeamName("team7");
+        teamAndAge.setAgeGoe(10);
+        teamAndAge.setAgeLoe(60);
+        username = new MemberSearchCondition();
+        username.setUsername("member77");
+
+        memberRepository = dataset.bean(MemberRepository.class);
+        // 데이터셋은 인덱스를 끈 채로 띄우므로 search는 DB로 가고, 인덱스는 여기서 직접 적재해 쓴다.
+        memberColumnIndex = dataset.bean(MemberColumnIndex.class);
+        memberColumnIndex.reload();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> databaseTeamAndAge() {
+        return memberRepository.search(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> columnIndexTeamAndAge() {
+        return memberColumnIndex.search(teamAndAge);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> databaseUsername() {
+        return memberRepository.search(username);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> columnIndexUsername() {
+        return memberColumnIndex.search(username);
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.service.MemberBulkLoader;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 벤치마크 공통 데이터. 인메모리 H2에 팀 100개, 회원 members명을 넣어둔 애플리케이션 컨텍스트를 띄운다.
+ * 검색 결과 캐시와 2차 캐시는 꺼서 매번 DB까지 가는 비용을 잰다.
+ */
+@State(Scope.Benchmark)
+public class MemberDataset {
+    public static final int TEAMS = 100;
+
+    @Param("10000")
+    public int members;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--member.search-cache.max-size=0",
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                        "--logging.level.root=warn");
+
+        Map<String, List<MemberDto>> membersByTeamName = new LinkedHashMap<>();
+        for (int i = 0; i < members; i++) {
+            membersByTeamName.computeIfAbsent("team" + (i % TEAMS), name -> new ArrayList<>())
+                    .add(new MemberDto("member" + i, i % 100));
+        }
+        bean(MemberBulkLoader.class).load(membersByTeamName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public JPAQueryFactory query() {
+        return bean(JPAQueryFactory.class);
+    }
+
+    public TransactionTemplate transactionTemplate() {
+        return bean(TransactionTemplate.class);
+    }
+}
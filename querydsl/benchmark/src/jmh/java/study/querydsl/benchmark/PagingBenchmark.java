@@ -0,0 +1,71 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import study.querydsl.domain.QMember;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSortKey;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 전체 fetch, offset 페이징(첫 페이지/깊은 페이지), 키셋 페이징(깊은 페이지) 비교
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PagingBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final QMember member = new QMember("member1");
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private MemberRepository memberRepository;
+    private int deepPage;
+    private Long deepCursor;
+
+    @Setup
+    public void setUp(MemberDataset dataset) {
+        // 깊은 페이지가 첫 페이지와 겹치지 않고 커서가 0번째 앞을 가리키지 않으려면 두 페이지 이상 있어야 한다.
+        if (dataset.members < 2 * PAGE_SIZE) {
+            throw new IllegalStateException("members must be at least " + 2 * PAGE_SIZE + " but was " + dataset.members);
+        }
+        memberRepository = dataset.bean(MemberRepository.class);
+        deepPage = dataset.members / PAGE_SIZE - 1;
+        deepCursor = dataset.query()
+                .select(member.id)
+                .from(member)
+                .orderBy(member.id.asc())
+                .offset((long) deepPage * PAGE_SIZE - 1)
+                .limit(1)
+                .fetchOne();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> fetchAll() {
+        return memberRepository.search(condition);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> offsetFirstPage() {
+        return memberRepository.searchPage(condition, PageRequest.of(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> offsetDeepPage() {
+        return memberRepository.searchPage(condition, PageRequest.of(deepPage, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Slice<MemberTeamDto> keysetDeepPage() {
+        return memberRepository.searchByCursor(condition, deepCursor, MemberSortKey.ID, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberParallelSearch;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 파티션 수에 따른 넓은 조건 검색 확장성
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelSearchBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private final MemberSearchCondition condition = new MemberSearchCondition();
+    private MemberParallelSearch parallelSearch;
+
+    @Setup
+    public void setUp(MemberDataset dataset) {
+        condition.setAgeGoe(10);
+        parallelSearch = new MemberParallelSearch(dataset.bean(EntityManager.class), dataset.bean(EntityManagerFactory.class),
+                parallelism, parallelism + 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallelSearch.shutdown();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return parallelSearch.search(condition, true);
+    }
+}
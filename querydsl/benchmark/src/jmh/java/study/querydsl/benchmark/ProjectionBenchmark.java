@@ -0,0 +1,69 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import study.querydsl.domain.QMember;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.projection.MethodHandleProjections;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// QuerydslBasicTest의 dto 조회 방식과 MethodHandle 프로젝션 비교
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+    private static final QMember member = new QMember("member1");
+
+    @Benchmark
+    public List<MemberDto> bean(MemberDataset dataset) {
+        return dataset.query()
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> fields(MemberDataset dataset) {
+        return dataset.query()
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> constructor(MemberDataset dataset) {
+        return dataset.query()
+                .select(Projections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> queryProjection(MemberDataset dataset) {
+        return dataset.query()
+                .select(new QMemberDto(member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> methodHandleBean(MemberDataset dataset) {
+        return dataset.query()
+                .select(MethodHandleProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDto> methodHandleConstructor(MemberDataset dataset) {
+        return dataset.query()
+                .select(MethodHandleProjections.constructor(MemberDto.class, member.username, member.age))
+                .from(member)
+                .fetch();
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import study.querydsl.domain.QMember;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.projection.MethodHandleProjections;
+
+import java.util.concurrent.TimeUnit;
+
+// DB 없이 행 1000개를 DTO로 만드는 비용만 비교. ProjectionBenchmark는 쿼리 비용에 가려진다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionNewInstanceBenchmark {
+    private static final int ROWS = 1000;
+    private static final QMember member = new QMember("member1");
+
+    private final FactoryExpression<MemberDto> bean = Projections.bean(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<MemberDto> fields = Projections.fields(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<MemberDto> constructor = Projections.constructor(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<MemberDto> methodHandleBean = MethodHandleProjections.bean(MemberDto.class, member.username, member.age);
+    private final FactoryExpression<MemberDto> methodHandleConstructor = MethodHandleProjections.constructor(MemberDto.class, member.username, member.age);
+    private Object[][] rows;
+
+    @Setup
+    public void setUp() {
+        rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{"member" + i, i % 100};
+        }
+    }
+
+    @Benchmark
+    public void bean(Blackhole blackhole) {
+        run(bean, blackhole);
+    }
+
+    @Benchmark
+    public void fields(Blackhole blackhole) {
+        run(fields, blackhole);
+    }
+
+    @Benchmark
+    public void constructor(Blackhole blackhole) {
+        run(constructor, blackhole);
+    }
+
+    @Benchmark
+    public void methodHandleBean(Blackhole blackhole) {
+        run(methodHandleBean, blackhole);
+    }
+
+    @Benchmark
+    public void methodHandleConstructor(Blackhole blackhole) {
+        run(methodHandleConstructor, blackhole);
+    }
+
+    private void run(FactoryExpression<MemberDto> projection, Blackhole blackhole) {
+        for (Object[] row : rows) {
+            blackhole.consume(projection.newInstance(row));
+        }
+    }
+}
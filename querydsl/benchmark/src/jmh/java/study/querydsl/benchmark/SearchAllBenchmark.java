@@ -0,0 +1,63 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// 인덱스를 탈 수 있는 서로 다른 모양의 패널 8개를 searchAll 한 번(트랜잭션 하나)과 패널마다 search로 읽을 때 비교.
+// searchAll이 or로 묶은 쿼리 하나였을 때는 9351us, 패널마다 search가 3710us였다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchAllBenchmark {
+    private final List<MemberSearchCondition> panels = new ArrayList<>();
+    private MemberRepository memberRepository;
+
+    @Setup
+    public void setUp(MemberDataset dataset) {
+        memberRepository = dataset.bean(MemberRepository.class);
+        panels.add(panel("member123", UsernameMatch.EXACT, null, null, null));
+        panels.add(panel("member1456", UsernameMatch.EXACT, null, null, null));
+        panels.add(panel("member99", UsernameMatch.PREFIX, null, null, null));
+        panels.add(panel(null, null, "team7", null, null));
+        panels.add(panel(null, null, "team42", 50, null));
+        panels.add(panel(null, null, "team3", null, 5));
+        panels.add(panel(null, null, null, 98, 98));
+        panels.add(panel("member1999", UsernameMatch.EXACT, null, null, null));
+    }
+
+    @Benchmark
+    public List<List<MemberTeamDto>> searchAll() {
+        return memberRepository.searchAll(panels);
+    }
+
+    @Benchmark
+    public List<List<MemberTeamDto>> queryPerPanel() {
+        return panels.stream().map(memberRepository::search).collect(Collectors.toList());
+    }
+
+    private static MemberSearchCondition panel(String username, UsernameMatch match, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        if (match != null) {
+            condition.setUsernameMatch(match);
+        }
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJPARepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// BooleanBuilder, where 파라미터, 모양별 JPQL 템플릿 검색 비교
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+    private MemberSearchCondition condition;
+    private MemberJPARepository memberJPARepository;
+    private MemberRepository memberRepository;
+
+    @Setup
+    public void setUp(MemberDataset dataset) {
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team7");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(60);
+        memberJPARepository = dataset.bean(MemberJPARepository.class);
+        memberRepository = dataset.bean(MemberRepository.class);
+
+        // 세 방식이 같은 결과를 내야 비교가 의미 있다.
+        int expected = memberRepository.search(condition).size();
+        if (memberJPARepository.searchByBuilder(condition).size() != expected
+                || memberJPARepository.search(condition).size() != expected) {
+            throw new IllegalStateException("search results differ for " + condition);
+        }
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> booleanBuilder() {
+        return memberJPARepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> whereParameters() {
+        return memberJPARepository.search(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> shapeTemplate() {
+        return memberRepository.search(condition);
+    }
+}
@@ -0,0 +1,58 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import study.querydsl.domain.QMember;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.domain.QTeam.team;
+
+// 회원명 부분 검색: like '%x%' 전체 스캔과 트라이그램 색인 검색의 처리량 비교. members를 바꿔가며 돌려본다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UsernameContainsBenchmark {
+    private static final String FRAGMENT = "r7777";
+
+    private MemberSearchCondition contains;
+    private MemberRepository memberRepository;
+    private JPAQueryFactory query;
+    private final QMember member = new QMember("member1");
+
+    @Setup
+    public void setUp(MemberDataset dataset) {
+        contains = new MemberSearchCondition();
+        contains.setUsername(FRAGMENT);
+        contains.setUsernameMatch(UsernameMatch.CONTAINS);
+        memberRepository = dataset.bean(MemberRepository.class);
+        query = dataset.query();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> likeScan() {
+        return query
+                .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.username.contains(FRAGMENT))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> gramIndex() {
+        return memberRepository.search(contains);
+    }
+}
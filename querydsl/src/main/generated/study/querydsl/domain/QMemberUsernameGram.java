@@ -0,0 +1,51 @@
+package study.querydsl.domain;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.processing.Generated;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.dsl.PathInits;
+
+
+/**
+ * QMemberUsernameGram is a Querydsl query type for MemberUsernameGram
+ */
+@Generated("com.querydsl.codegen.DefaultEntitySerializer")
+public class QMemberUsernameGram extends EntityPathBase<MemberUsernameGram> {
+
+    private static final long serialVersionUID = -1774311651L;
+
+    private static final PathInits INITS = PathInits.DIRECT2;
+
+    public static final QMemberUsernameGram memberUsernameGram = new QMemberUsernameGram("memberUsernameGram");
+
+    public final StringPath gram = createString("gram");
+
+    public final QMember member;
+
+    public QMemberUsernameGram(String variable) {
+        this(MemberUsernameGram.class, forVariable(variable), INITS);
+    }
+
+    public QMemberUsernameGram(Path<? extends MemberUsernameGram> path) {
+        this(path.getType(), path.getMetadata(), PathInits.getFor(path.getMetadata(), INITS));
+    }
+
+    public QMemberUsernameGram(PathMetadata metadata) {
+        this(metadata, PathInits.getFor(metadata, INITS));
+    }
+
+    public QMemberUsernameGram(PathMetadata metadata, PathInits inits) {
+        this(MemberUsernameGram.class, metadata, inits);
+    }
+
+    public QMemberUsernameGram(Class<? extends MemberUsernameGram> type, PathMetadata metadata, PathInits inits) {
+        super(type, metadata, inits);
+        this.member = inits.isInitialized("member") ? new QMember(forProperty("member"), inits.get("member")) : null;
+    }
+
+}
+
@@ -0,0 +1,45 @@
+package study.querydsl.domain;
+
+import static com.querydsl.core.types.PathMetadataFactory.*;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.PathMetadata;
+import javax.annotation.processing.Generated;
+import com.querydsl.core.types.Path;
+
+
+/**
+ * QTeamStat is a Querydsl query type for TeamStat
+ */
+@Generated("com.querydsl.codegen.DefaultEntitySerializer")
+public class QTeamStat extends EntityPathBase<TeamStat> {
+
+    private static final long serialVersionUID = 1813265639L;
+
+    public static final QTeamStat teamStat = new QTeamStat("teamStat");
+
+    public final NumberPath<Long> ageSum = createNumber("ageSum", Long.class);
+
+    public final NumberPath<Integer> maxAge = createNumber("maxAge", Integer.class);
+
+    public final NumberPath<Long> memberCount = createNumber("memberCount", Long.class);
+
+    public final NumberPath<Integer> minAge = createNumber("minAge", Integer.class);
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public QTeamStat(String variable) {
+        super(TeamStat.class, forVariable(variable));
+    }
+
+    public QTeamStat(Path<? extends TeamStat> path) {
+        super(path.getType(), path.getMetadata());
+    }
+
+    public QTeamStat(PathMetadata metadata) {
+        super(TeamStat.class, metadata);
+    }
+
+}
+
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.ConstructorExpression;
+import javax.annotation.processing.Generated;
+
+/**
+ * study.querydsl.dto.QTeamDto is a Querydsl Projection type for TeamDto
+ */
+@Generated("com.querydsl.codegen.DefaultProjectionSerializer")
+public class QTeamDto extends ConstructorExpression<TeamDto> {
+
+    private static final long serialVersionUID = 2104831903L;
+
+    public QTeamDto(com.querydsl.core.types.Expression<Long> teamId, com.querydsl.core.types.Expression<String> name) {
+        super(TeamDto.class, new Class<?>[]{long.class, String.class}, teamId, name);
+    }
+
+}
+
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.ConstructorExpression;
+import javax.annotation.processing.Generated;
+
+/**
+ * study.querydsl.dto.QTeamMemberDto is a Querydsl Projection type for TeamMemberDto
+ */
+@Generated("com.querydsl.codegen.DefaultProjectionSerializer")
+public class QTeamMemberDto extends ConstructorExpression<TeamMemberDto> {
+
+    private static final long serialVersionUID = 1425907365L;
+
+    public QTeamMemberDto(com.querydsl.core.types.Expression<Long> memberId, com.querydsl.core.types.Expression<String> username, com.querydsl.core.types.Expression<Integer> age) {
+        super(TeamMemberDto.class, new Class<?>[]{long.class, String.class, int.class}, memberId, username, age);
+    }
+
+}
+
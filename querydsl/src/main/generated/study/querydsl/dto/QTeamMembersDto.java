@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.ConstructorExpression;
+import javax.annotation.processing.Generated;
+
+/**
+ * study.querydsl.dto.QTeamMembersDto is a Querydsl Projection type for TeamMembersDto
+ */
+@Generated("com.querydsl.codegen.DefaultProjectionSerializer")
+public class QTeamMembersDto extends ConstructorExpression<TeamMembersDto> {
+
+    private static final long serialVersionUID = 1254809670L;
+
+    public QTeamMembersDto(com.querydsl.core.types.Expression<Long> teamId, com.querydsl.core.types.Expression<String> name) {
+        super(TeamMembersDto.class, new Class<?>[]{long.class, String.class}, teamId, name);
+    }
+
+}
+
@@ -0,0 +1,21 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.types.dsl.*;
+
+import com.querydsl.core.types.ConstructorExpression;
+import javax.annotation.processing.Generated;
+
+/**
+ * study.querydsl.dto.QTeamStatDto is a Querydsl Projection type for TeamStatDto
+ */
+@Generated("com.querydsl.codegen.DefaultProjectionSerializer")
+public class QTeamStatDto extends ConstructorExpression<TeamStatDto> {
+
+    private static final long serialVersionUID = 1928609963L;
+
+    public QTeamStatDto(com.querydsl.core.types.Expression<Long> teamId, com.querydsl.core.types.Expression<String> teamName, com.querydsl.core.types.Expression<Long> memberCount, com.querydsl.core.types.Expression<Long> ageSum, com.querydsl.core.types.Expression<Integer> minAge, com.querydsl.core.types.Expression<Integer> maxAge) {
+        super(TeamStatDto.class, new Class<?>[]{long.class, String.class, long.class, long.class, int.class, int.class}, teamId, teamName, memberCount, ageSum, minAge, maxAge);
+    }
+
+}
+
@@ -0,0 +1,30 @@
+package study.querydsl.cache;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Pattern;
+
+// p6spy를 거치는 모든 쓰기 문장을 본다. 엔티티 변경뿐 아니라 벌크 update/delete도 여기서 잡힌다.
+@Component
+@RequiredArgsConstructor
+public class MemberCacheInvalidationListener extends SimpleJdbcEventListener {
+    private static final Pattern MEMBER_OR_TEAM_WRITE = Pattern.compile(
+            "^\\s*(insert\\s+into|update|delete\\s+from|merge\\s+into)\\s+(member|team)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final MemberSearchCache memberSearchCache;
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        if (isMemberOrTeamWrite(statementInformation.getSql())) {
+            memberSearchCache.markDirty();
+        }
+    }
+
+    static boolean isMemberOrTeamWrite(String sql) {
+        return sql != null && MEMBER_OR_TEAM_WRITE.matcher(sql).find();
+    }
+}
@@ -0,0 +1,195 @@
+package study.querydsl.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 검색 조건별 결과 캐시. 크기와 TTL로 비우고, member/team에 쓰기가 나가면 전부 무효화한다.
+ * 현재 트랜잭션이 member/team을 이미 수정했다면 커밋 전 데이터가 캐시에 섞이지 않도록 캐시를 거치지 않는다.
+ * 키는 MemberSearchNormalizer로 맞춘 조건이므로, loader도 같은 조건으로 조회해야 한다.
+ * DTO는 변경 가능하므로 넣을 때와 꺼낼 때 복사해서 호출자끼리 같은 인스턴스를 나눠 갖지 않는다.
+ * 읽기가 replica로 갈 수 있으면 무효화 뒤 replicaLag 동안은 넣지 않는다. 아직 쓰기를 받지 못한 replica의 결과로 다시 채워지지 않게 한다.
+ */
+@Component
+public class MemberSearchCache {
+    private static final Object DIRTY_KEY = MemberSearchCache.class.getName() + ".DIRTY";
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long replicaLagNanos;
+    private volatile long invalidatedAt;
+    private final Map<MemberSearchKey, CachedResult> entries;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public MemberSearchCache(@Value("${member.search-cache.max-size:1000}") int maxSize,
+                             @Value("${member.search-cache.ttl:60s}") Duration ttl,
+                             @Value("${member.search-cache.replica-lag:0s}") Duration replicaLag) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.replicaLagNanos = replicaLag.toNanos();
+        this.invalidatedAt = System.nanoTime() - replicaLagNanos;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MemberSearchKey, CachedResult> eldest) {
+                return size() > MemberSearchCache.this.maxSize;
+            }
+        };
+    }
+
+    public List<MemberTeamDto> get(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> loader) {
+        if (maxSize <= 0 || TransactionSynchronizationManager.hasResource(DIRTY_KEY)) {
+            return loader.get();
+        }
+
+        MemberSearchKey key = MemberSearchKey.of(condition);
+        synchronized (entries) {
+            CachedResult cached = entries.get(key);
+            if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+                hits.incrementAndGet();
+                return copyOf(cached.value);
+            }
+        }
+
+        misses.incrementAndGet();
+        // 조회 중에 무효화가 일어났다면 이미 지난 결과이므로 넣지 않는다.
+        long loadedGeneration = generation.get();
+        List<MemberTeamDto> value = loader.get();
+        synchronized (entries) {
+            if (storable(loadedGeneration)) {
+                entries.put(key, new CachedResult(copyOf(value), System.nanoTime() + ttlNanos));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 여러 조건을 한 번에 찾는다. 캐시에 없는 조건만 모아 loader를 한 번 부르고, 결과는 조건 순서대로 돌려준다.
+     */
+    public List<List<MemberTeamDto>> getAll(List<MemberSearchCondition> conditions,
+                                            Function<List<MemberSearchCondition>, List<List<MemberTeamDto>>> loader) {
+        if (maxSize <= 0 || TransactionSynchronizationManager.hasResource(DIRTY_KEY)) {
+            return loader.apply(conditions);
+        }
+
+        List<List<MemberTeamDto>> results = new ArrayList<>(conditions.size());
+        List<Integer> missIndexes = new ArrayList<>();
+        List<MemberSearchCondition> missed = new ArrayList<>();
+        synchronized (entries) {
+            for (MemberSearchCondition condition : conditions) {
+                CachedResult cached = entries.get(MemberSearchKey.of(condition));
+                if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+                    results.add(copyOf(cached.value));
+                } else {
+                    missIndexes.add(results.size());
+                    missed.add(condition);
+                    results.add(null);
+                }
+            }
+        }
+        hits.addAndGet(conditions.size() - missed.size());
+        if (missed.isEmpty()) {
+            return results;
+        }
+
+        misses.addAndGet(missed.size());
+        long loadedGeneration = generation.get();
+        List<List<MemberTeamDto>> loaded = loader.apply(missed);
+        synchronized (entries) {
+            for (int i = 0; i < missed.size(); i++) {
+                List<MemberTeamDto> value = loaded.get(i);
+                if (storable(loadedGeneration)) {
+                    entries.put(MemberSearchKey.of(missed.get(i)), new CachedResult(copyOf(value), System.nanoTime() + ttlNanos));
+                }
+                results.set(missIndexes.get(i), value);
+            }
+        }
+        return results;
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            invalidatedAt = System.nanoTime();
+            entries.clear();
+        }
+    }
+
+    // 조회 중에 무효화가 없었고, replica가 쓰기를 따라잡을 시간이 지났을 때만 넣는다.
+    private boolean storable(long loadedGeneration) {
+        return generation.get() == loadedGeneration && System.nanoTime() - invalidatedAt >= replicaLagNanos;
+    }
+
+    /**
+     * member/team에 쓰기가 나갈 때 호출된다. 트랜잭션이 끝날 때(커밋이든 롤백이든) 한 번 더 비운다.
+     */
+    public void markDirty() {
+        invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(DIRTY_KEY)) {
+            TransactionSynchronizationManager.bindResource(DIRTY_KEY, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(DIRTY_KEY);
+                    invalidateAll();
+                }
+            });
+        }
+    }
+
+    private static List<MemberTeamDto> copyOf(List<MemberTeamDto> value) {
+        List<MemberTeamDto> copy = new ArrayList<>(value.size());
+        for (MemberTeamDto dto : value) {
+            copy.add(new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName()));
+        }
+        return copy;
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.get(), misses.get(), entries.size());
+        }
+    }
+
+    private static class CachedResult {
+        private final List<MemberTeamDto> value;
+        private final long expiresAt;
+
+        private CachedResult(List<MemberTeamDto> value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    @lombok.Value
+    public static class Stats {
+        long hits;
+        long misses;
+        int size;
+
+        public double getHitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        public double getMissRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) misses / total;
+        }
+    }
+}
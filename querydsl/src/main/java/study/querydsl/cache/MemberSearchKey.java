@@ -0,0 +1,27 @@
+package study.querydsl.cache;
+
+import lombok.Value;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchNormalizer;
+import study.querydsl.dto.UsernameMatch;
+
+// MemberSearchNormalizer로 맞춘 조건의 값. 공백 차이나 효과 없는 경계만 다른 조건은 같은 키가 된다.
+@Value
+public class MemberSearchKey {
+
+    String username;
+    UsernameMatch usernameMatch;
+    String teamName;
+    Integer ageGoe;
+    Integer ageLoe;
+
+    public static MemberSearchKey of(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = MemberSearchNormalizer.normalize(condition).orElse(condition);
+        return new MemberSearchKey(
+                normalized.getUsername(),
+                normalized.getUsernameMatch(),
+                normalized.getTeamName(),
+                normalized.getAgeGoe(),
+                normalized.getAgeLoe());
+    }
+}
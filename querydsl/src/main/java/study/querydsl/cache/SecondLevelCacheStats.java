@@ -0,0 +1,45 @@
+package study.querydsl.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 하이버네이트 2차 캐시 리전별 hit/miss
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheStats {
+    private final EntityManagerFactory emf;
+
+    public Map<String, RegionStats> regions() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Map<String, RegionStats> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                regions.put(regionName, new RegionStats(region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), region.getElementCountInMemory()));
+            }
+        }
+        return regions;
+    }
+
+    @Value
+    public static class RegionStats {
+        long hits;
+        long misses;
+        long puts;
+        long size;
+
+        public double getHitRatio() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+}
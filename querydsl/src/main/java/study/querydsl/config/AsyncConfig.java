@@ -0,0 +1,41 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    // Executor 빈을 직접 등록하면 부트 기본 실행기가 빠지므로 같은 설정으로 다시 등록한다. (mvc 비동기 처리 등에서 사용)
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    @Primary
+    ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // DB 조회 전용 스레드 풀. 커넥션 풀보다 많은 스레드가 커넥션을 기다리지 않게 크기를 제한한다.
+    // 큐가 차면 TaskRejectedException으로 거절한다. 호출한 스레드에서 대신 돌리면 그 스레드의 트랜잭션에
+    // 참여하게 되어, 부하에 따라 같은 호출의 트랜잭션 의미가 달라지기 때문이다.
+    @Bean
+    ThreadPoolTaskExecutor dbExecutor(@Value("${member.async.pool-size:8}") int poolSize,
+                                      @Value("${member.async.queue-capacity:100}") int queueCapacity,
+                                      @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        int threads = Math.max(1, Math.min(poolSize, maximumPoolSize - 1));
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("db-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * member.datasource.routing.enabled일 때 기본 DataSource를 primary/replica 라우팅으로 바꾼다.
+ * primary는 spring.datasource 설정 그대로, replica는 member.datasource.routing.replica.* 로 만든다.
+ * replica url이 없으면 primary와 같은 DB에 풀만 따로 연다. 로컬 H2에서 복제 지연 없는 replica로 쓸 수 있다.
+ * 두 풀 모두 빈이 아니라서 p6spy는 라우팅 데이터소스인 dataSource 빈에서 한 번만 감싼다.
+ * LazyConnectionDataSourceProxy는 p6spy 바깥에 씌운다. p6spy는 커넥션을 받자마자 메타데이터를 읽으므로 안쪽에 있으면
+ * 트랜잭션이 시작될 때(읽기 전용 표시가 붙기 전에) 실제 커넥션을 골라 읽기 전용 트랜잭션도 primary로 간다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+    private ReadWriteRoutingDataSource routing;
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 @Value("${member.datasource.routing.replica.url:}") String replicaUrl,
+                                 @Value("${member.datasource.routing.replica.username:}") String replicaUsername,
+                                 @Value("${member.datasource.routing.replica.password:}") String replicaPassword,
+                                 @Value("${member.datasource.routing.health-check-interval:5s}") Duration healthCheckInterval,
+                                 @Value("${member.datasource.routing.sticky-window:0s}") Duration stickyWindow) {
+        HikariDataSource primary = pool(environment, properties, "primary",
+                properties.determineUrl(), properties.determineUsername(), properties.determinePassword());
+        HikariDataSource replica = hasText(replicaUrl)
+                ? pool(environment, properties, "replica", replicaUrl, replicaUsername, replicaPassword)
+                : pool(environment, properties, "replica",
+                properties.determineUrl(), properties.determineUsername(), properties.determinePassword());
+
+        routing = new ReadWriteRoutingDataSource(primary, replica, healthCheckInterval, stickyWindow);
+        return routing;
+    }
+
+    @Bean
+    public static BeanPostProcessor lazyConnectionDataSourcePostProcessor() {
+        return new LazyConnectionPostProcessor();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (routing != null) {
+            routing.close();
+        }
+    }
+
+    // spring.datasource.hikari 설정을 두 풀에 똑같이 적용한다.
+    private HikariDataSource pool(Environment environment, DataSourceProperties properties, String name,
+                                  String url, String username, String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+
+    // p6spy 데코레이터(LOWEST_PRECEDENCE - 10)가 감싼 dataSource를 다시 감싼다.
+    private static class LazyConnectionPostProcessor implements BeanPostProcessor, Ordered {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if ("dataSource".equals(beanName) && bean instanceof DataSource) {
+                return new LazyConnectionDataSourceProxy((DataSource) bean);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 읽기 전용 트랜잭션은 replica로, 나머지(쓰기 트랜잭션, 트랜잭션 밖)는 primary로 보낸다.
+ * 트랜잭션의 읽기 전용 여부는 커넥션을 실제로 쓸 때 정해지므로 LazyConnectionDataSourceProxy로 감싸서 써야 한다.
+ * replica는 주기적으로 확인하고, 확인이나 연결에 실패하면 다시 살아날 때까지 primary로 읽는다.
+ * stickyWindow가 있으면 쓰기 트랜잭션을 커밋한 스레드는 그 시간 동안 primary에서 읽어 방금 쓴 값을 본다.
+ * 스레드 기준이므로 같은 요청 안의 읽기만 보장된다. 같은 사용자의 다음 요청이 다른 서블릿 스레드로 가면 replica에서 읽는다.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long stickyWindowNanos;
+    private final ThreadLocal<Long> lastWriteAt = new ThreadLocal<>();
+    private final ScheduledExecutorService healthCheck;
+    private volatile boolean replicaHealthy = true;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica,
+                                      Duration healthCheckInterval, Duration stickyWindow) {
+        this.primary = primary;
+        this.replica = replica;
+        this.stickyWindowNanos = stickyWindow.toNanos();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        if (healthCheckInterval.isZero() || healthCheckInterval.isNegative()) {
+            healthCheck = null;
+            return;
+        }
+        healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = healthCheckInterval.toMillis();
+        healthCheck.scheduleWithFixedDelay(this::checkReplica, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWrite();
+            return Target.PRIMARY;
+        }
+        if (!replicaHealthy || isSticky()) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        if (target == replica) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                markReplicaDown(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    public boolean isReplicaHealthy() {
+        return replicaHealthy;
+    }
+
+    /**
+     * replica에 연결해 응답하는지 확인하고 상태를 바꾼다. 주기 확인도 이 메서드를 부른다.
+     */
+    public boolean checkReplica() {
+        try (Connection connection = replica.getConnection()) {
+            if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                throw new SQLException("replica connection is not valid");
+            }
+            if (!replicaHealthy) {
+                log.info("replica가 다시 응답합니다. 읽기 전용 트랜잭션을 replica로 보냅니다.");
+            }
+            replicaHealthy = true;
+        } catch (SQLException e) {
+            markReplicaDown(e);
+        }
+        return replicaHealthy;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (healthCheck != null) {
+            healthCheck.shutdownNow();
+        }
+        for (DataSource dataSource : new DataSource[]{primary, replica}) {
+            if (dataSource instanceof Closeable) {
+                ((Closeable) dataSource).close();
+            }
+        }
+    }
+
+    private void markReplicaDown(SQLException e) {
+        if (replicaHealthy) {
+            log.warn("replica에 연결할 수 없어 primary로 읽습니다. {}", e.getMessage());
+        }
+        replicaHealthy = false;
+    }
+
+    private boolean isSticky() {
+        Long writtenAt = lastWriteAt.get();
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt < stickyWindowNanos) {
+            return true;
+        }
+        lastWriteAt.remove();
+        return false;
+    }
+
+    // 쓰기 트랜잭션이 커밋되면 이 스레드의 마지막 쓰기 시각을 남긴다. 트랜잭션마다 한 번만 등록한다.
+    private void rememberWrite() {
+        if (stickyWindowNanos <= 0
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lastWriteAt.set(System.nanoTime());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReadWriteRoutingDataSource.this);
+            }
+        });
+    }
+}
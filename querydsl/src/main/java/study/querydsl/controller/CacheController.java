@@ -0,0 +1,25 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.cache.MemberSearchCache;
+import study.querydsl.cache.SecondLevelCacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheController {
+    private final MemberSearchCache memberSearchCache;
+    private final SecondLevelCacheStats secondLevelCacheStats;
+
+    @GetMapping("/v1/cache/stats")
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memberSearch", memberSearchCache.stats());
+        stats.put("secondLevel", secondLevelCacheStats.regions());
+        return stats;
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.diagnostics.IndexAdvisor;
+import study.querydsl.diagnostics.SlowQueryLog;
+
+import java.util.List;
+
+// 수집한 sql과 바인딩 값을 그대로 내주므로 dev 프로필에서만 연다.
+@Profile("dev")
+@RestController
+@RequiredArgsConstructor
+public class DiagnosticsController {
+    private final IndexAdvisor indexAdvisor;
+    private final SlowQueryLog slowQueryLog;
+
+    @GetMapping("/v1/dev/index-advice")
+    public List<IndexAdvisor.Advice> indexAdvice() {
+        return indexAdvisor.report();
+    }
+
+    @GetMapping("/v1/dev/slow-queries")
+    public List<SlowQueryLog.SlowQuery> slowQueries() {
+        return slowQueryLog.report();
+    }
+}
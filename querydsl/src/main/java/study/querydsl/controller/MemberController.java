@@ -0,0 +1,106 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJPARepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberController {
+    private static final int FETCH_SIZE = 1000;
+    private static final int FLUSH_ROWS = 500;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private final MemberJPARepository memberJPARepository;
+    private final MemberRepository memberRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    // 조회되는 대로 응답에 바로 쓰므로 전체 결과를 메모리에 모으지 않는다.
+    // 클라이언트가 느리면 write가 막히면서 DB 읽기도 같이 늦춰진다.
+    @GetMapping("/v1/members/export")
+    public ResponseEntity<StreamingResponseBody> export(MemberSearchCondition condition,
+                                                       @RequestParam(defaultValue = "ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv but was " + format);
+        }
+
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (csv) {
+                writer.write("memberId,username,age,teamId,teamName\n");
+            }
+
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> {
+                long[] rows = {0};
+                memberJPARepository.searchForEach(condition, FETCH_SIZE, memberTeamDto -> {
+                    try {
+                        writer.write(csv ? toCsv(memberTeamDto) : objectMapper.writeValueAsString(memberTeamDto));
+                        writer.write('\n');
+                        if (++rows[0] % FLUSH_ROWS == 0) {
+                            writer.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            });
+            writer.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(csv ? CSV : NDJSON)
+                .body(body);
+    }
+
+    // 화면의 패널마다 조건 하나. 결과는 요청한 조건 순서대로 돌려준다. HTTP 요청은 하나지만 DB 쿼리는 조건마다 나간다.
+    @PostMapping("/v1/members/search-all")
+    public List<List<MemberTeamDto>> searchAll(@RequestBody List<MemberSearchCondition> conditions) {
+        return memberRepository.searchAll(conditions);
+    }
+
+    private String toCsv(MemberTeamDto dto) {
+        return dto.getMemberId() + ","
+                + csvField(dto.getUsername()) + ","
+                + dto.getAge() + ","
+                + (dto.getTeamId() == null ? "" : dto.getTeamId()) + ","
+                + csvField(dto.getTeamName());
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamStatDto;
+import study.querydsl.service.TeamStatService;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+    private final TeamStatService teamStatService;
+
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatDto> stats() {
+        return teamStatService.findAll();
+    }
+}
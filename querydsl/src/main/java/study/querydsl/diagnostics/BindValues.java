@@ -0,0 +1,45 @@
+package study.querydsl.diagnostics;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * PreparedStatement에 바인딩된 값을 문장별로 모아 둔다. 진단 리스너들이 ?가 남은 sql과 함께 쓸 값을 여기서 꺼낸다.
+ * 값을 설정하고 실행하는 건 같은 스레드이므로 스레드별로 들고, 닫힌 문장은 약한 참조라 알아서 빠진다.
+ */
+@Slf4j
+@Component
+public class BindValues extends SimpleJdbcEventListener {
+    private final ThreadLocal<Map<StatementInformation, TreeMap<Integer, Object>>> values =
+            ThreadLocal.withInitial(WeakHashMap::new);
+
+    @Override
+    public void onAfterPreparedStatementSet(PreparedStatementInformation statementInformation, int parameterIndex, Object value, SQLException e) {
+        try {
+            values.get().computeIfAbsent(statementInformation, key -> new TreeMap<>()).put(parameterIndex, value);
+        } catch (RuntimeException ex) {
+            log.debug("bind value not recorded", ex);
+        }
+    }
+
+    // 자리 순서대로 꺼낸다. 일반 Statement는 값이 sql 안에 있으므로 빈 목록이다. 실패해도 빈 목록을 준다.
+    public List<Object> of(StatementInformation statementInformation) {
+        try {
+            TreeMap<Integer, Object> parameters = values.get().get(statementInformation);
+            return parameters == null ? List.of() : new ArrayList<>(parameters.values());
+        } catch (RuntimeException e) {
+            log.warn("bind values not available", e);
+            return List.of();
+        }
+    }
+}
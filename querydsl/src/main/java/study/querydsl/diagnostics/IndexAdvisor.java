@@ -0,0 +1,124 @@
+package study.querydsl.diagnostics;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchShape;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 개발용 인덱스 어드바이저. search가 실제로 받는 조건 모양별로 호출 수와 처음 실행된 sql을 모아두고,
+ * report()에서 H2 EXPLAIN으로 어떤 모양이 테이블 풀 스캔을 타는지 알려준다.
+ * sql은 ?가 남은 채로 두고 바인딩 값은 따로 모아 EXPLAIN에도 PreparedStatement로 넘긴다.
+ * p6spy 리스너는 DataSource보다 먼저 만들어져야 등록되므로 JdbcTemplate은 나중에 꺼내 쓴다.
+ */
+@Component
+public class IndexAdvisor extends SimpleJdbcEventListener {
+    private static final Pattern TABLE_SCAN = Pattern.compile("PUBLIC\\.(\\w+)\\.tableScan", Pattern.CASE_INSENSITIVE);
+
+    private final boolean enabled;
+    private final BindValues bindValues;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+    private final ThreadLocal<MemberSearchShape> current = new ThreadLocal<>();
+    private final Map<MemberSearchShape, Usage> usages = new ConcurrentHashMap<>();
+
+    public IndexAdvisor(@org.springframework.beans.factory.annotation.Value("${member.index-advisor.enabled:false}") boolean enabled,
+                        BindValues bindValues,
+                        ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.enabled = enabled;
+        this.bindValues = bindValues;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public <T> T record(MemberSearchCondition condition, Supplier<T> search) {
+        if (!enabled) {
+            return search.get();
+        }
+
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        usages.computeIfAbsent(shape, s -> new Usage()).calls.incrementAndGet();
+        current.set(shape);
+        try {
+            return search.get();
+        } finally {
+            current.remove();
+        }
+    }
+
+    @Override
+    public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        MemberSearchShape shape = current.get();
+        if (shape == null || e != null) {
+            return;
+        }
+        Usage usage = usages.get(shape);
+        if (usage != null && usage.sql == null) {
+            usage.parameters = bindValues.of(statementInformation);
+            usage.sql = statementInformation.getSql();
+        }
+    }
+
+    public List<Advice> report() {
+        List<Advice> advices = new ArrayList<>();
+        for (Map.Entry<MemberSearchShape, Usage> entry : usages.entrySet()) {
+            Usage usage = entry.getValue();
+            String sql = usage.sql;
+            if (sql == null) {
+                continue;
+            }
+            // 한 모양의 EXPLAIN이 실패해도 나머지 모양은 계속 본다.
+            String plan;
+            try {
+                plan = String.join("\n", jdbcTemplate.getObject().queryForList("explain " + sql, String.class,
+                        usage.parameters.toArray()));
+            } catch (RuntimeException ex) {
+                plan = "explain failed: " + ex.getMessage();
+            }
+            TreeSet<String> scanned = new TreeSet<>();
+            Matcher matcher = TABLE_SCAN.matcher(plan);
+            while (matcher.find()) {
+                scanned.add(matcher.group(1).toLowerCase());
+            }
+            advices.add(new Advice(entry.getKey().toString(), entry.getValue().calls.get(),
+                    new ArrayList<>(scanned), plan));
+        }
+        advices.sort((a, b) -> Long.compare(b.getCalls(), a.getCalls()));
+        return advices;
+    }
+
+    public void reset() {
+        usages.clear();
+    }
+
+    private static class Usage {
+        private final AtomicLong calls = new AtomicLong();
+        private volatile List<Object> parameters;
+        private volatile String sql;
+    }
+
+    @Value
+    public static class Advice {
+        String shape;
+        long calls;
+        List<String> fullScanTables;
+        String plan;
+
+        public boolean isFullScan() {
+            return !fullScanTables.isEmpty();
+        }
+    }
+}
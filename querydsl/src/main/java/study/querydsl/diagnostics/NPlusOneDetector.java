@@ -0,0 +1,131 @@
+package study.querydsl.diagnostics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 한 범위(요청 또는 트랜잭션) 안에서 실행된 문장을 세고,
+ * 키 하나로 한 테이블을 읽는 같은 select가 threshold번을 넘게 반복되면 N+1로 본다.
+ * member.getTeam() 프록시 초기화나 team.getMembers() 컬렉션 초기화가 이런 모양으로 나간다.
+ * 범위는 open()으로 직접 열거나, 없으면 진행 중인 트랜잭션에 묶어 트랜잭션이 끝날 때 닫는다.
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector extends SimpleJdbcEventListener {
+    private static final Pattern SINGLE_KEY_SELECT = Pattern.compile(
+            "^\\s*select\\s.+?\\sfrom\\s+(\\w+)\\s+\\w+\\s+where\\s+\\w+\\.(\\w+)\\s*=\\s*\\?\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    public enum Mode {
+        OFF, WARN, THROW
+    }
+
+    private final Mode mode;
+    private final int threshold;
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    public NPlusOneDetector(@Value("${member.n-plus-one.mode:warn}") Mode mode,
+                            @Value("${member.n-plus-one.threshold:5}") int threshold) {
+        this.mode = mode;
+        this.threshold = threshold;
+    }
+
+    /**
+     * 현재 스레드에 새 범위를 연다. 닫으면 이전 범위로 돌아간다.
+     */
+    public Scope open() {
+        Scope scope = new Scope(current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        // OFF여도 open()으로 연 범위의 문장은 센다. assertMaxQueries는 모드와 상관없이 동작해야 한다.
+        Scope scope = mode == Mode.OFF ? current.get() : currentScope();
+        if (scope == null) {
+            return;
+        }
+
+        String sql = statementInformation.getSql();
+        scope.statements++;
+        Matcher matcher = SINGLE_KEY_SELECT.matcher(sql);
+        if (!matcher.find()) {
+            return;
+        }
+        int repeated = scope.singleKeyLoads.merge(sql, 1, Integer::sum);
+        if (repeated == threshold + 1 && mode != Mode.OFF) {
+            String message = String.format("N+1 suspected: %d single-row loads from %s by %s in one scope: %s",
+                    repeated, matcher.group(1), matcher.group(2), sql);
+            if (mode == Mode.THROW) {
+                throw new NPlusOneException(message);
+            }
+            log.warn(message);
+        }
+    }
+
+    private Scope currentScope() {
+        Scope scope = current.get();
+        if (scope != null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return scope;
+        }
+
+        scope = (Scope) TransactionSynchronizationManager.getResource(this);
+        if (scope == null) {
+            Scope transactionScope = new Scope(null);
+            TransactionSynchronizationManager.bindResource(this, transactionScope);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(NPlusOneDetector.this);
+                }
+            });
+            scope = transactionScope;
+        }
+        return scope;
+    }
+
+    public class Scope implements AutoCloseable {
+        private final Scope outer;
+        private final Map<String, Integer> singleKeyLoads = new LinkedHashMap<>();
+        private int statements;
+
+        private Scope(Scope outer) {
+            this.outer = outer;
+        }
+
+        public int getStatementCount() {
+            return statements;
+        }
+
+        // 반복된 단건 조회만 횟수와 함께 보여준다.
+        public String summary() {
+            StringBuilder summary = new StringBuilder();
+            singleKeyLoads.forEach((sql, count) -> {
+                if (count > 1) {
+                    summary.append(count).append("x ").append(sql).append('\n');
+                }
+            });
+            return summary.toString();
+        }
+
+        @Override
+        public void close() {
+            if (outer != null) {
+                current.set(outer);
+            } else {
+                current.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package study.querydsl.diagnostics;
+
+// member.n-plus-one.mode=throw 일 때 반복 단건 조회를 실행하기 전에 던진다.
+public class NPlusOneException extends IllegalStateException {
+    public NPlusOneException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.diagnostics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// 요청 하나를 N+1 감지 범위 하나로 본다. 스트리밍 응답처럼 다른 스레드에서 도는 작업은 그쪽 트랜잭션 범위로 센다.
+@Component
+@RequiredArgsConstructor
+public class NPlusOneScopeFilter extends OncePerRequestFilter {
+    private final NPlusOneDetector nPlusOneDetector;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        NPlusOneDetector.Scope scope = nPlusOneDetector.open();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scope.close();
+        }
+    }
+}
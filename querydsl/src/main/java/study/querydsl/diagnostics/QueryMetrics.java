@@ -0,0 +1,113 @@
+package study.querydsl.diagnostics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchShape;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 회원 조회/벌크 연산을 조건 모양별로 계측한다.
+ * member.query(시간), member.query.rows(결과 행 수), member.query.statements(실행한 jdbc 문장 수)를
+ * operation, shape, outcome 태그로 남긴다. 문장 수는 p6spy가 같은 스레드에서 실행한 것만 센다.
+ * 레지스트리는 DataSource 메트릭 바인더를 거쳐 만들어지므로 나중에 꺼내 쓴다.
+ */
+@Component
+public class QueryMetrics extends SimpleJdbcEventListener {
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ThreadLocal<long[]> statements = new ThreadLocal<>();
+
+    public QueryMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T extends Collection<?>> T record(String operation, MemberSearchCondition condition, Supplier<T> query) {
+        long[] rows = new long[1];
+        return measure(operation, MemberSearchShape.of(condition).toString(), rows, () -> {
+            T result = query.get();
+            rows[0] = result.size();
+            return result;
+        });
+    }
+
+    // 여러 조건을 한 번에 찾는 호출. 모양은 batch로 묶고 행 수는 조건별 결과를 더한다.
+    public <T extends Collection<? extends Collection<?>>> T recordBatch(String operation, Supplier<T> query) {
+        long[] rows = new long[1];
+        return measure(operation, "batch", rows, () -> {
+            T result = query.get();
+            for (Collection<?> part : result) {
+                rows[0] += part.size();
+            }
+            return result;
+        });
+    }
+
+    public long recordBulk(String operation, MemberSearchCondition condition, LongSupplier bulk) {
+        long[] rows = new long[1];
+        return measure(operation, MemberSearchShape.of(condition).toString(), rows, () -> {
+            rows[0] = bulk.getAsLong();
+            return rows[0];
+        });
+    }
+
+    private <T> T measure(String operation, String shape, long[] rows, Supplier<T> work) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return work.get();
+        }
+
+        long[] outer = statements.get();
+        long[] count = new long[1];
+        statements.set(count);
+        String outcome = "error";
+        long start = System.nanoTime();
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (outer != null) {
+                outer[0] += count[0];
+                statements.set(outer);
+            } else {
+                statements.remove();
+            }
+
+            Tags tags = Tags.of("operation", operation, "shape", shape, "outcome", outcome);
+            Timer.builder("member.query")
+                    .tags(tags)
+                    .register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("member.query.rows")
+                    .baseUnit("rows")
+                    .tags(tags)
+                    .register(registry)
+                    .record(rows[0]);
+            DistributionSummary.builder("member.query.statements")
+                    .baseUnit("statements")
+                    .tags(tags)
+                    .register(registry)
+                    .record(count[0]);
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        long[] count = statements.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package study.querydsl.diagnostics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 임계값보다 오래 걸린 문장만 ?가 남은 sql과 바인딩 값, 호출한 리포지토리 메서드와 함께 모은다.
+ * 가장 느린 capacity개만 남기고, select는 explain-sample-rate 비율로 EXPLAIN ANALYZE 결과를 붙인다.
+ * EXPLAIN도 같은 sql에 값을 PreparedStatement로 바인딩해서 돌린다. 값을 sql 문자열에 끼워 넣지 않는다.
+ * EXPLAIN ANALYZE는 쿼리를 한 번 더 실행하므로 호출한 스레드의 커넥션을 잡은 채 기다리지 않도록 별도 스레드에서 돌린다.
+ */
+@Slf4j
+@Component
+public class SlowQueryLog extends SimpleJdbcEventListener {
+    private static final Pattern SELECT = Pattern.compile("^\\s*select\\b", Pattern.CASE_INSENSITIVE);
+    private static final String BASE_PACKAGE = "study.querydsl.";
+    // 쿼리를 감싸기만 하는 계층이다. 호출자를 찾을 때 건너뛴다.
+    private static final List<String> WRAPPER_PACKAGES = List.of(
+            "study.querydsl.diagnostics.", "study.querydsl.cache.", "study.querydsl.index.");
+
+    private final long thresholdNanos;
+    private final double explainSampleRate;
+    private final int capacity;
+    private final BindValues bindValues;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+    private final PriorityQueue<SlowQuery> worst = new PriorityQueue<>(Comparator.comparingLong(SlowQuery::getElapsedNanos));
+    private final ThreadLocal<Boolean> explaining = new ThreadLocal<>();
+    private final ThreadPoolExecutor explainExecutor;
+
+    public SlowQueryLog(@Value("${member.slow-query.threshold:200ms}") Duration threshold,
+                        @Value("${member.slow-query.explain-sample-rate:0.1}") double explainSampleRate,
+                        @Value("${member.slow-query.capacity:50}") int capacity,
+                        BindValues bindValues,
+                       ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.thresholdNanos = threshold.toNanos();
+        this.explainSampleRate = explainSampleRate;
+        this.capacity = capacity;
+        this.bindValues = bindValues;
+        this.jdbcTemplate = jdbcTemplate;
+        // 밀리면 버린다. 진단 때문에 쿼리가 쌓이면 안 된다.
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16), runnable -> {
+            Thread thread = new Thread(runnable, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (timeElapsedNanos < thresholdNanos || capacity <= 0 || explaining.get() != null) {
+            return;
+        }
+
+        // 진단 때문에 원래 쿼리가 실패하면 안 된다.
+        try {
+            String sql = statementInformation.getSql();
+            SlowQuery slowQuery = new SlowQuery(sql, bindValues.of(statementInformation), caller(), timeElapsedNanos, Instant.now());
+            log.warn("slow query {}ms at {}: {} {}", slowQuery.getElapsedMillis(), slowQuery.getCaller(), sql, slowQuery.getParameters());
+            if (!keep(slowQuery)) {
+                return;
+            }
+            if (SELECT.matcher(sql).find() && ThreadLocalRandom.current().nextDouble() < explainSampleRate) {
+                explainExecutor.execute(() -> explain(slowQuery));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("slow query not recorded", ex);
+        }
+    }
+
+    public List<SlowQuery> report() {
+        List<SlowQuery> result;
+        synchronized (worst) {
+            result = new ArrayList<>(worst);
+        }
+        result.sort(Comparator.comparingLong(SlowQuery::getElapsedNanos).reversed());
+        return result;
+    }
+
+    public void reset() {
+        synchronized (worst) {
+            worst.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private boolean keep(SlowQuery slowQuery) {
+        synchronized (worst) {
+            if (worst.size() < capacity) {
+                return worst.add(slowQuery);
+            }
+            if (worst.peek().getElapsedNanos() >= slowQuery.getElapsedNanos()) {
+                return false;
+            }
+            worst.poll();
+            return worst.add(slowQuery);
+        }
+    }
+
+    private void explain(SlowQuery slowQuery) {
+        explaining.set(Boolean.TRUE);
+        try {
+            slowQuery.plan = String.join("\n",
+                    jdbcTemplate.getObject().queryForList("explain analyze " + slowQuery.getSql(), String.class,
+                            slowQuery.getParameters().toArray()));
+        } catch (RuntimeException ex) {
+            slowQuery.plan = "explain failed: " + ex.getMessage();
+        } finally {
+            explaining.remove();
+        }
+    }
+
+    // 람다와 캐시·인덱스·진단처럼 감싸기만 하는 프레임은 건너뛰고 처음 만나는 애플리케이션 메서드를 호출자로 본다.
+    // 감싸는 계층이 직접 낸 쿼리(인덱스 적재 등)라 그 밖의 프레임이 없으면 그 계층의 메서드를 쓴다.
+    private static String caller() {
+        List<StackWalker.StackFrame> frames = StackWalker.getInstance().walk(stream -> stream
+                .filter(f -> f.getClassName().startsWith(BASE_PACKAGE))
+                .filter(f -> !f.getClassName().equals(SlowQueryLog.class.getName()))
+                .filter(f -> !f.getMethodName().startsWith("lambda$"))
+                .collect(Collectors.toList()));
+        return frames.stream()
+                .filter(f -> WRAPPER_PACKAGES.stream().noneMatch(f.getClassName()::startsWith))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(f -> f.getClassName().substring(BASE_PACKAGE.length()) + "." + f.getMethodName())
+                .orElse("unknown");
+    }
+
+    @Getter
+    public static class SlowQuery {
+        private final String sql;
+        private final List<Object> parameters;
+        private final String caller;
+        private final long elapsedNanos;
+        private final Instant executedAt;
+        private volatile String plan;
+
+        private SlowQuery(String sql, List<Object> parameters, String caller, long elapsedNanos, Instant executedAt) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.caller = caller;
+            this.elapsedNanos = elapsedNanos;
+            this.executedAt = executedAt;
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+    }
+}
@@ -13,10 +13,16 @@ import javax.persistence.*;
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age")
+})
+@SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
 public class Member {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
     @Column(name = "member_id")
     private Long id;
     private String username;
@@ -34,6 +40,14 @@ public class Member {
         }
     }
 
+    public void changeUsername(String username){
+        this.username = username;
+    }
+
+    public void changeAge(int age){
+        this.age = age;
+    }
+
     public void changeTeam(Team team){
         this.team = team;
         team.getMembers().add(this);
@@ -0,0 +1,52 @@
+package study.querydsl.domain;
+
+import com.querydsl.core.annotations.QueryEntity;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * 회원 이름의 트라이그램 색인. (gram, member_id)가 PK라 gram 하나의 회원 목록을 범위 검색으로 읽는다.
+ * 행은 MemberUsernameGramIndexer만 JDBC로 쓰고, 회원이 지워지면 FK의 on delete cascade로 같이 지워진다.
+ */
+@Entity
+@QueryEntity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString(of = "gram")
+@IdClass(MemberUsernameGram.Key.class)
+@Table(indexes = @Index(name = "idx_member_username_gram_member", columnList = "member_id"))
+public class MemberUsernameGram {
+
+    @Id
+    @Column(length = 3)
+    private String gram;
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "member_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Member member;
+
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String gram;
+        private Long member;
+    }
+}
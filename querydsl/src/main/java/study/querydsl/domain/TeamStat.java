@@ -0,0 +1,28 @@
+package study.querydsl.domain;
+
+import com.querydsl.core.annotations.QueryEntity;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+// 팀별 회원 통계 요약. 회원이 한 명 이상인 팀만 행이 있고, 값은 TeamStatMaintainer만 채운다.
+@Entity
+@QueryEntity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStat {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+    private long memberCount;
+    private long ageSum;
+    private int minAge;
+    private int maxAge;
+}
@@ -7,8 +7,13 @@ public class MemberSearchCondition {
     //회원명, 팀명, 나이(ageGoe, ageLoe)
 
     private String username;
+    private UsernameMatch usernameMatch = UsernameMatch.EXACT;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
 
+    // null이면 EXACT로 본다.
+    public UsernameMatch getUsernameMatch() {
+        return usernameMatch != null ? usernameMatch : UsernameMatch.EXACT;
+    }
 }
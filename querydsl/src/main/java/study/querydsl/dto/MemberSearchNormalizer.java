@@ -0,0 +1,42 @@
+package study.querydsl.dto;
+
+import java.util.Optional;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색 조건을 같은 뜻이면 같은 값이 되도록 맞춘다. 검색, 캐시 키, JPQL 템플릿이 모두 이 형태를 기준으로 한다.
+ * 문자열은 앞뒤 공백을 자르고 비면 null, 회원명이 없으면 검색 방식은 EXACT, 모든 나이를 통과시키는 경계는 뺀다.
+ * ageGoe > ageLoe처럼 맞는 회원이 있을 수 없으면 빈 Optional을 돌려주고, 호출하는 쪽은 DB에 가지 않고 빈 결과를 돌려준다.
+ */
+public final class MemberSearchNormalizer {
+
+    private MemberSearchNormalizer() {
+    }
+
+    public static Optional<MemberSearchCondition> normalize(MemberSearchCondition condition) {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(trimToNull(condition.getUsername()));
+        normalized.setUsernameMatch(normalized.getUsername() != null ? condition.getUsernameMatch() : UsernameMatch.EXACT);
+        normalized.setTeamName(trimToNull(condition.getTeamName()));
+
+        Integer ageGoe = condition.getAgeGoe();
+        Integer ageLoe = condition.getAgeLoe();
+        if (ageGoe != null && ageGoe == Integer.MIN_VALUE) {
+            ageGoe = null;
+        }
+        if (ageLoe != null && ageLoe == Integer.MAX_VALUE) {
+            ageLoe = null;
+        }
+        if (ageGoe != null && ageLoe != null && ageGoe > ageLoe) {
+            return Optional.empty();
+        }
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return Optional.of(normalized);
+    }
+
+    private static String trimToNull(String value) {
+        return hasText(value) ? value.trim() : null;
+    }
+}
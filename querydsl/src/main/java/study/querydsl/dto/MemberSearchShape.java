@@ -0,0 +1,94 @@
+package study.querydsl.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+
+// 검색 조건 중 어떤 필드가 채워졌는지만 본 모양. 회원명은 검색 방식까지 구분해서 4 x 8 = 32가지다.
+public final class MemberSearchShape {
+    private static final int USERNAME = 1;
+    private static final int TEAM_NAME = 1 << 1;
+    private static final int AGE_GOE = 1 << 2;
+    private static final int AGE_LOE = 1 << 3;
+    private static final int USERNAME_PREFIX = 1 << 4;
+    private static final int USERNAME_CONTAINS = 1 << 5;
+    private static final MemberSearchShape[] SHAPES = new MemberSearchShape[64];
+    private static final MemberSearchShape[] VALUES;
+
+    static {
+        List<MemberSearchShape> values = new ArrayList<>();
+        for (int mask = 0; mask < SHAPES.length; mask++) {
+            boolean matchBits = (mask & (USERNAME_PREFIX | USERNAME_CONTAINS)) != 0;
+            if (matchBits && ((mask & USERNAME) == 0 || Integer.bitCount(mask >> 4) > 1)) {
+                continue;
+            }
+            SHAPES[mask] = new MemberSearchShape(mask);
+            values.add(SHAPES[mask]);
+        }
+        VALUES = values.toArray(new MemberSearchShape[0]);
+    }
+
+    private final int mask;
+    private final String label;
+
+    private MemberSearchShape(int mask) {
+        this.mask = mask;
+        List<String> fields = new ArrayList<>();
+        if ((mask & USERNAME_PREFIX) != 0) fields.add("usernamePrefix");
+        else if ((mask & USERNAME_CONTAINS) != 0) fields.add("usernameContains");
+        else if ((mask & USERNAME) != 0) fields.add("username");
+        if ((mask & TEAM_NAME) != 0) fields.add("teamName");
+        if ((mask & AGE_GOE) != 0) fields.add("ageGoe");
+        if ((mask & AGE_LOE) != 0) fields.add("ageLoe");
+        this.label = fields.isEmpty() ? "none" : String.join("+", fields);
+    }
+
+    public static MemberSearchShape of(MemberSearchCondition condition) {
+        int mask = 0;
+        if (hasText(condition.getUsername())) {
+            mask |= USERNAME;
+            if (condition.getUsernameMatch() == UsernameMatch.PREFIX) mask |= USERNAME_PREFIX;
+            if (condition.getUsernameMatch() == UsernameMatch.CONTAINS) mask |= USERNAME_CONTAINS;
+        }
+        if (hasText(condition.getTeamName())) mask |= TEAM_NAME;
+        if (condition.getAgeGoe() != null) mask |= AGE_GOE;
+        if (condition.getAgeLoe() != null) mask |= AGE_LOE;
+        return SHAPES[mask];
+    }
+
+    public static MemberSearchShape[] values() {
+        return VALUES.clone();
+    }
+
+    public int mask() {
+        return mask;
+    }
+
+    public boolean hasUsername() {
+        return (mask & USERNAME) != 0;
+    }
+
+    public UsernameMatch usernameMatch() {
+        if ((mask & USERNAME_PREFIX) != 0) return UsernameMatch.PREFIX;
+        if ((mask & USERNAME_CONTAINS) != 0) return UsernameMatch.CONTAINS;
+        return UsernameMatch.EXACT;
+    }
+
+    public boolean hasTeamName() {
+        return (mask & TEAM_NAME) != 0;
+    }
+
+    public boolean hasAgeGoe() {
+        return (mask & AGE_GOE) != 0;
+    }
+
+    public boolean hasAgeLoe() {
+        return (mask & AGE_LOE) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
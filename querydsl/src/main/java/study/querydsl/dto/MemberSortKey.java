@@ -0,0 +1,8 @@
+package study.querydsl.dto;
+
+// 커서 페이징 정렬 기준, 같은 값이면 member_id로 순서를 정한다.
+public enum MemberSortKey {
+    ID,
+    AGE,
+    USERNAME // username이 null인 회원은 맨 뒤에 member_id 순으로 온다.
+}
@@ -0,0 +1,25 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamStatDto {
+
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private double avgAge;
+    private int minAge;
+    private int maxAge;
+
+    @QueryProjection
+    public TeamStatDto(Long teamId, String teamName, long memberCount, long ageSum, int minAge, int maxAge) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.avgAge = memberCount == 0 ? 0 : (double) ageSum / memberCount;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+}
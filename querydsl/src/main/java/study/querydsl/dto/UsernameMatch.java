@@ -0,0 +1,6 @@
+package study.querydsl.dto;
+
+// 회원명 검색 방식. PREFIX는 idx_member_username 범위 검색, CONTAINS는 member_username_gram 트라이그램 색인을 탄다.
+public enum UsernameMatch {
+    EXACT, PREFIX, CONTAINS
+}
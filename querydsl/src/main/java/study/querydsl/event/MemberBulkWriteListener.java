@@ -0,0 +1,27 @@
+package study.querydsl.event;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import static study.querydsl.event.MemberWriteTracker.isMemberWrite;
+
+// 벌크 update/delete는 엔티티 이벤트가 없으므로 p6spy에서 문장을 보고 MemberWriteTracker에 넘긴다.
+// MemberWriteTracker는 EntityManagerFactory가 필요해서 member 쓰기일 때만 나중에 꺼내 쓴다.
+@Component
+public class MemberBulkWriteListener extends SimpleJdbcEventListener {
+    private final ObjectProvider<MemberWriteTracker> memberWriteTracker;
+
+    public MemberBulkWriteListener(ObjectProvider<MemberWriteTracker> memberWriteTracker) {
+        this.memberWriteTracker = memberWriteTracker;
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        String sql = statementInformation.getSql();
+        if (isMemberWrite(sql)) {
+            memberWriteTracker.getObject().onStatement(sql);
+        }
+    }
+}
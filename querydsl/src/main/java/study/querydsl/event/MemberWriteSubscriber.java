@@ -0,0 +1,24 @@
+package study.querydsl.event;
+
+import org.hibernate.engine.spi.SessionImplementor;
+
+/**
+ * 회원/팀 쓰기를 따라가는 쪽. MemberWriteTracker.subscribe로 등록하면 트랜잭션마다 자기 몫의 MemberWrites를 받는다.
+ */
+public interface MemberWriteSubscriber {
+
+    // flush가 끝나 엔티티 변경이 DB에 나간 직후. 같은 트랜잭션의 다음 조회부터 보여야 하는 것을 여기서 쓴다.
+    default void afterFlush(SessionImplementor session, MemberWrites writes) {
+    }
+
+    // 커밋 직전, 마지막 flush 뒤. 세션의 커넥션으로 쓰면 같은 트랜잭션으로 커밋된다.
+    default void beforeCommit(SessionImplementor session, MemberWrites writes) {
+    }
+
+    // 커밋된 뒤. 롤백되면 불리지 않는다.
+    default void afterCommit(MemberWrites writes) {
+    }
+
+    // 스프링 트랜잭션 밖의 쓰기라 모을 수 없었다.
+    void writtenOutsideTransaction();
+}
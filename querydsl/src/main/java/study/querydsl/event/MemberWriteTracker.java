@@ -0,0 +1,312 @@
+package study.querydsl.event;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerGroup;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AutoFlushEventListener;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.FlushEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 트랜잭션마다 회원/팀 쓰기를 모아 구독자(team_stat, 메모리 열 인덱스, 회원명 트라이그램 색인)에게 나눠 준다.
+ * 엔티티 insert/update/delete는 Hibernate 이벤트로, 벌크 문장은 MemberBulkWriteListener가 p6spy에서 본 sql로 받는다.
+ * 엔티티 쓰기는 flush 안에서만 나가므로(id는 시퀀스로 받는다) flush 밖에서 나가는 member 쓰기를 벌크로 본다.
+ * sql 모양으로는 where member_id = ? 한 건짜리 벌크 update와 엔티티 update를 가를 수 없다.
+ * 벌크 문장이 바꾼 회원을 아는 쪽은 reporting 안에서 실행해 id를 알려준다. 모르면 구독자가 전체를 다시 맞춘다.
+ * 스프링 트랜잭션 밖의 쓰기나 트랜잭션에 묶이지 않은 다른 세션의 쓰기는 모을 수 없어 구독자에게 그렇다고만 알린다.
+ */
+@Component
+public class MemberWriteTracker implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+    private static final Pattern MEMBER_WRITE = Pattern.compile(
+            "^\\s*(insert\\s+into|update|delete\\s+from|merge\\s+into)\\s+member\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SETS_USERNAME = Pattern.compile(
+            "^\\s*update\\s+member\\s+set\\s+((?!\\swhere\\s).)*\\busername\\s*=", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+    private final List<MemberWriteSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Integer> flushDepth = new ThreadLocal<>();
+    private final ThreadLocal<Set<Long>> reported = new ThreadLocal<>();
+
+    public MemberWriteTracker(EntityManagerFactory emf, EntityManager em) {
+        this.emf = emf;
+        this.em = em;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        wrap(registry.getEventListenerGroup(EventType.FLUSH), listeners -> (FlushEventListener) event -> {
+            flushing(() -> listeners.forEach(listener -> listener.onFlush(event)));
+            afterFlush(event.getSession());
+        });
+        wrap(registry.getEventListenerGroup(EventType.AUTO_FLUSH), listeners -> (AutoFlushEventListener) event -> {
+            flushing(() -> listeners.forEach(listener -> listener.onAutoFlush(event)));
+            afterFlush(event.getSession());
+        });
+    }
+
+    public void subscribe(MemberWriteSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * 현재 트랜잭션에서 이 구독자 몫으로 모은 쓰기. 없으면 만든다. 스프링 트랜잭션 밖이면 null이다.
+     */
+    public MemberWrites writes(MemberWriteSubscriber subscriber) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        Transaction transaction = transaction(em.unwrap(SessionImplementor.class));
+        return transaction == null ? null : transaction.writes(subscriber);
+    }
+
+    /**
+     * 현재 트랜잭션에 이 구독자 몫으로 모은 쓰기가 있으면 돌려준다. 새로 만들지 않는다.
+     */
+    public MemberWrites existingWrites(MemberWriteSubscriber subscriber) {
+        Transaction transaction = (Transaction) TransactionSynchronizationManager.getResource(this);
+        return transaction == null ? null : transaction.writes.get(subscriber);
+    }
+
+    /**
+     * 바꿀 회원 id를 아는 벌크 쓰기를 실행한다. 그동안 나가는 벌크 문장은 이 회원들만 바꾼 것으로 본다.
+     * 팀이나 나이가 바뀌는 쓰기면 바뀌기 전후의 팀을 markTeamsChanged로 따로 알려야 한다.
+     */
+    public <T> T reporting(Collection<Long> memberIds, Supplier<T> write) {
+        reported.set(new LinkedHashSet<>(memberIds));
+        try {
+            return write.get();
+        } finally {
+            reported.remove();
+        }
+    }
+
+    /**
+     * 소속 회원이나 그 회원의 나이가 바뀐 팀을 알려준다.
+     */
+    public void markTeamsChanged(Collection<Long> teamIds) {
+        recordInTransaction(writes -> writes.memberTeamsChanged(teamIds));
+    }
+
+    /**
+     * p6spy가 본 문장. flush 밖에서 나가는 member 쓰기만 벌크로 모은다.
+     */
+    public void onStatement(String sql) {
+        if (!isMemberWrite(sql) || isFlushing()) {
+            return;
+        }
+        Set<Long> memberIds = reported.get();
+        boolean setsUsername = SETS_USERNAME.matcher(sql).find();
+        recordInTransaction(writes -> writes.bulk(memberIds, setsUsername));
+    }
+
+    public boolean isFlushing() {
+        return flushDepth.get() != null;
+    }
+
+    /**
+     * member에 나가는 쓰기 문장인지 sql로만 본다. DataSource보다 먼저 만들어지는 p6spy 리스너가 이 빈을 꺼내기 전에 거른다.
+     */
+    public static boolean isMemberWrite(String sql) {
+        return sql != null && MEMBER_WRITE.matcher(sql).find();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            Member member = (Member) event.getEntity();
+            record(event.getSession(), writes -> writes.inserted(member.getId(), teamId(member.getTeam()), member.getUsername()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Team) {
+            record(event.getSession(), writes -> writes.teamUpdated((Long) event.getId()));
+            return;
+        }
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Long memberId = (Long) event.getId();
+        int ageIndex = propertyIndex(event.getPersister(), "age");
+        int teamIndex = propertyIndex(event.getPersister(), "team");
+        int usernameIndex = propertyIndex(event.getPersister(), "username");
+        // 바뀐 속성을 모르면 전부 바뀐 것으로 본다.
+        int[] dirty = event.getDirtyProperties();
+        boolean teamOrAge = dirty == null || contains(dirty, ageIndex) || contains(dirty, teamIndex);
+        boolean username = dirty == null || contains(dirty, usernameIndex);
+        record(event.getSession(), writes -> {
+            writes.updated(memberId);
+            if (teamOrAge && event.getOldState() == null) {
+                writes.teamOrAgeChangedFromUnknown(memberId);
+            } else if (teamOrAge) {
+                writes.teamOrAgeChanged(memberId,
+                        teamId((Team) event.getOldState()[teamIndex]), teamId((Team) event.getState()[teamIndex]));
+            }
+            if (username) {
+                writes.usernameChanged(memberId, (String) event.getState()[usernameIndex]);
+            }
+        });
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            int teamIndex = propertyIndex(event.getPersister(), "team");
+            Long teamId = teamId((Team) event.getDeletedState()[teamIndex]);
+            record(event.getSession(), writes -> writes.deleted((Long) event.getId(), teamId));
+        }
+    }
+
+    // 5.x에서는 deprecated된 이 이름이 추상 메서드라 구현해야 한다.
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void recordInTransaction(Consumer<MemberWrites> change) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            subscribers.forEach(MemberWriteSubscriber::writtenOutsideTransaction);
+            return;
+        }
+        record(em.unwrap(SessionImplementor.class), change);
+    }
+
+    private void record(SessionImplementor session, Consumer<MemberWrites> change) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        Transaction transaction = TransactionSynchronizationManager.isActualTransactionActive() ? transaction(session) : null;
+        if (transaction == null) {
+            subscribers.forEach(MemberWriteSubscriber::writtenOutsideTransaction);
+            return;
+        }
+        for (MemberWriteSubscriber subscriber : subscribers) {
+            change.accept(transaction.writes(subscriber));
+        }
+    }
+
+    private void afterFlush(SessionImplementor session) {
+        Transaction transaction = (Transaction) TransactionSynchronizationManager.getResource(this);
+        if (transaction == null || transaction.session != session) {
+            return;
+        }
+        transaction.writes.forEach((subscriber, writes) -> subscriber.afterFlush(session, writes));
+    }
+
+    // 트랜잭션마다 하나. 처음 만들 때 커밋 직전과 커밋 뒤에 구독자를 부르도록 등록한다.
+    private Transaction transaction(SessionImplementor session) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Transaction transaction = (Transaction) TransactionSynchronizationManager.getResource(this);
+        if (transaction == null) {
+            Transaction created = new Transaction(session);
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MemberWriteTracker.this);
+                    if (status == STATUS_COMMITTED) {
+                        created.writes.forEach((subscriber, writes) -> subscriber.afterCommit(writes));
+                    }
+                }
+            });
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) s ->
+                    created.writes.forEach((subscriber, writes) -> subscriber.beforeCommit(s, writes)));
+            return created;
+        }
+        // 트랜잭션에 묶이지 않은 다른 세션의 변경은 이 트랜잭션과 함께 커밋되지 않는다.
+        return transaction.session == session ? transaction : null;
+    }
+
+    private void flushing(Runnable flush) {
+        Integer depth = flushDepth.get();
+        flushDepth.set(depth == null ? 1 : depth + 1);
+        try {
+            flush.run();
+        } finally {
+            if (depth == null) {
+                flushDepth.remove();
+            } else {
+                flushDepth.set(depth);
+            }
+        }
+    }
+
+    // 이미 등록된 리스너(기본 flush 리스너 포함)를 하나로 묶어 다시 등록한다. 예외가 나도 flush 중 표시가 남지 않는다.
+    private static <T> void wrap(EventListenerGroup<T> group, Function<List<T>, T> wrapper) {
+        List<T> listeners = new ArrayList<>();
+        group.listeners().forEach(listeners::add);
+        group.clearListeners();
+        group.appendListener(wrapper.apply(listeners));
+    }
+
+    private static Long teamId(Team team) {
+        return team == null ? null : team.getId();
+    }
+
+    private static int propertyIndex(EntityPersister persister, String property) {
+        return persister.getEntityMetamodel().getPropertyIndex(property);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Transaction {
+        private final SessionImplementor session;
+        private final Map<MemberWriteSubscriber, MemberWrites> writes = new LinkedHashMap<>();
+
+        private Transaction(SessionImplementor session) {
+            this.session = session;
+        }
+
+        private MemberWrites writes(MemberWriteSubscriber subscriber) {
+            return writes.computeIfAbsent(subscriber, s -> new MemberWrites());
+        }
+    }
+}
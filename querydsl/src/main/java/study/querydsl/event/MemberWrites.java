@@ -0,0 +1,112 @@
+package study.querydsl.event;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 한 트랜잭션에서 나간 회원/팀 쓰기를 구독자가 쓰기 좋은 모양으로 모은 것. MemberWriteTracker가 구독자마다 하나씩 채운다.
+ * 구독자는 자기 것만 읽고 반영한 만큼 비운다.
+ */
+@Getter
+public class MemberWrites {
+    // insert/update/delete되거나 id를 알려준 벌크 문장이 바꾼 회원
+    private final Set<Long> memberIds = new LinkedHashSet<>();
+    // 이름 등 팀 엔티티 자체가 바뀐 팀
+    private final Set<Long> teamIds = new LinkedHashSet<>();
+    // 소속 회원이나 그 회원의 나이가 바뀐 팀
+    private final Set<Long> memberTeamIds = new LinkedHashSet<>();
+    // 엔티티로 바뀐 회원명. 아직 flush 결과를 반영하지 않은 것만 남는다.
+    private final Map<Long, String> usernames = new LinkedHashMap<>();
+    // usernames 중 새로 insert된 회원. 지울 예전 값이 없다.
+    private final Set<Long> insertedIds = new LinkedHashSet<>();
+    // id를 알려준 벌크 문장으로 이름이 바뀐 회원
+    private final Set<Long> renamedIds = new LinkedHashSet<>();
+    // 어떤 회원이 바뀌었는지 모르는 벌크 문장이 나갔다.
+    private boolean unknownMembers;
+    // 바뀌기 전 팀을 모르는 회원 update가 있었다.
+    private boolean unknownMemberTeams;
+    // 어떤 회원의 이름이 바뀌었는지 모르는 벌크 문장이 나갔다.
+    private boolean unknownUsernames;
+
+    public boolean isEmpty() {
+        return memberIds.isEmpty() && teamIds.isEmpty() && memberTeamIds.isEmpty() && usernames.isEmpty()
+                && renamedIds.isEmpty() && !unknownMembers && !unknownMemberTeams && !unknownUsernames;
+    }
+
+    public void clear() {
+        memberIds.clear();
+        teamIds.clear();
+        memberTeamIds.clear();
+        usernames.clear();
+        insertedIds.clear();
+        renamedIds.clear();
+        unknownMembers = false;
+        unknownMemberTeams = false;
+        unknownUsernames = false;
+    }
+
+    void inserted(Long memberId, Long teamId, String username) {
+        memberIds.add(memberId);
+        addTeam(teamId);
+        usernames.put(memberId, username);
+        insertedIds.add(memberId);
+    }
+
+    void teamOrAgeChanged(Long memberId, Long oldTeamId, Long newTeamId) {
+        memberIds.add(memberId);
+        addTeam(oldTeamId);
+        addTeam(newTeamId);
+    }
+
+    void teamOrAgeChangedFromUnknown(Long memberId) {
+        memberIds.add(memberId);
+        unknownMemberTeams = true;
+    }
+
+    void usernameChanged(Long memberId, String username) {
+        memberIds.add(memberId);
+        usernames.put(memberId, username);
+    }
+
+    void updated(Long memberId) {
+        memberIds.add(memberId);
+    }
+
+    // 같은 트랜잭션에서 insert 뒤에 delete된 회원은 쓸 이름이 없다. 나머지 gram은 cascade가 지운다.
+    void deleted(Long memberId, Long teamId) {
+        memberIds.add(memberId);
+        addTeam(teamId);
+        usernames.remove(memberId);
+        insertedIds.remove(memberId);
+    }
+
+    void teamUpdated(Long teamId) {
+        teamIds.add(teamId);
+    }
+
+    void memberTeamsChanged(Iterable<Long> teamIds) {
+        teamIds.forEach(this::addTeam);
+    }
+
+    void bulk(Set<Long> reportedMemberIds, boolean setsUsername) {
+        if (reportedMemberIds == null) {
+            unknownMembers = true;
+            unknownUsernames |= setsUsername;
+            return;
+        }
+        memberIds.addAll(reportedMemberIds);
+        if (setsUsername) {
+            renamedIds.addAll(reportedMemberIds);
+        }
+    }
+
+    private void addTeam(Long teamId) {
+        if (teamId != null) {
+            memberTeamIds.add(teamId);
+        }
+    }
+}
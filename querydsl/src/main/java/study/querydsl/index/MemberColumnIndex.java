@@ -0,0 +1,330 @@
+package study.querydsl.index;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.QMember;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.event.MemberWriteSubscriber;
+import study.querydsl.event.MemberWriteTracker;
+import study.querydsl.event.MemberWrites;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * search 조건을 DB 없이 거르는 메모리 열 인덱스. member.column-index.enabled일 때만 기동 시 적재하고 변경을 따라간다.
+ * MemberWriteTracker가 모아 준 회원/팀 변경은 커밋 뒤에 바뀐 행만 다시 읽는다. 어떤 회원이 바뀌었는지 모르는 벌크 문장이
+ * 나간 트랜잭션은 커밋 뒤에 전체 적재를 예약하고,
+ * chunk마다 커밋하는 벌크 연산이 적재를 여러 번 일으키지 않도록 밀린 요청은 한 번으로 합친다. 적재가 끝날 때까지는 isAvailable()이 false다.
+ * 반영과 적재는 모두 reloader 스레드 하나에서 차례로 돌고, 커밋한 스레드는 반영을 큐에 넣기만 한다.
+ * 커밋한 스레드는 자기 반영이 끝날 때까지 isAvailable()이 false라서 방금 커밋한 변경을 놓치지 않는다.
+ * 커밋 전 변경은 보이지 않으므로 member/team을 flush한 트랜잭션 안에서도, 세션에 flush 전 변경이 있어도 isAvailable()이 false다.
+ */
+@Slf4j
+@Component
+public class MemberColumnIndex implements MemberWriteSubscriber {
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+    private static final int REFRESH_CHUNK_SIZE = 500;
+
+    private final boolean enabled;
+    private final EntityManagerFactory emf;
+    private final MemberWriteTracker memberWriteTracker;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private MemberColumns columns = new MemberColumns();
+    private volatile boolean ready;
+    private final AtomicLong dirtyGeneration = new AtomicLong();
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+    private final Object applyQueue = new Object();
+    private long queuedApplies;
+    private volatile long finishedApplies;
+    private final ThreadLocal<Long> ownApply = new ThreadLocal<>();
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-column-index-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private QMember member = new QMember("member1");
+
+    public MemberColumnIndex(@Value("${member.column-index.enabled:false}") boolean enabled,
+                             EntityManagerFactory emf, MemberWriteTracker memberWriteTracker) {
+        this.enabled = enabled;
+        this.emf = emf;
+        this.memberWriteTracker = memberWriteTracker;
+    }
+
+    @PostConstruct
+    public void register() {
+        if (enabled) {
+            memberWriteTracker.subscribe(this);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    public boolean isAvailable() {
+        return enabled && ready && !hasWrites() && ownChangesApplied() && !hasUnflushedChanges();
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        lock.readLock().lock();
+        try {
+            return columns.search(condition);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 전체를 새 저장소에 읽어 들인 뒤 바꿔 끼운다. 읽는 동안에도 이전 저장소로 검색할 수 있다.
+     * reloader 스레드에서 돌리고 끝날 때까지 기다린다.
+     */
+    public void reload() {
+        try {
+            reloader.submit(this::loadAll).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void loadAll() {
+        long generation = dirtyGeneration.get();
+        long start = System.nanoTime();
+        MemberColumns loaded = new MemberColumns();
+        withEntityManager(em -> {
+            JPAQueryFactory query = new JPAQueryFactory(em);
+            Long lastId = null;
+            while (true) {
+                List<MemberTeamDto> chunk = query
+                        .select(projection())
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(lastId != null ? member.id.gt(lastId) : null)
+                        .orderBy(member.id.asc())
+                        .limit(LOAD_CHUNK_SIZE)
+                        .fetch();
+                chunk.forEach(loaded::upsert);
+                if (chunk.size() < LOAD_CHUNK_SIZE) {
+                    return null;
+                }
+                lastId = chunk.get(chunk.size() - 1).getMemberId();
+                em.clear();
+            }
+        });
+
+        lock.writeLock().lock();
+        try {
+            columns = loaded;
+            // 읽는 동안 다시 더러워졌으면 예약된 다음 적재가 끝나야 쓸 수 있다.
+            ready = dirtyGeneration.get() == generation;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member column index loaded {} members in {}ms", loaded.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloader.shutdownNow();
+    }
+
+    @Override
+    public void afterCommit(MemberWrites writes) {
+        if (!writes.isEmpty()) {
+            enqueue(writes);
+        }
+    }
+
+    // 트랜잭션 밖의 변경은 전체 적재로 맞춘다.
+    @Override
+    public void writtenOutsideTransaction() {
+        requestReload();
+    }
+
+    // 이 트랜잭션에서 flush한 회원/팀 변경은 커밋 전이라 인덱스에 없다.
+    private boolean hasWrites() {
+        MemberWrites writes = memberWriteTracker.existingWrites(this);
+        return writes != null && !writes.isEmpty();
+    }
+
+    // 순번을 매긴 순서대로 reloader에 넣어서 finishedApplies가 앞의 반영까지 끝났다는 뜻이 되게 한다.
+    private void enqueue(MemberWrites writes) {
+        synchronized (applyQueue) {
+            long sequence = ++queuedApplies;
+            ownApply.set(sequence);
+            reloader.execute(() -> {
+                try {
+                    apply(writes);
+                } finally {
+                    finishedApplies = sequence;
+                }
+            });
+        }
+    }
+
+    private boolean ownChangesApplied() {
+        Long sequence = ownApply.get();
+        if (sequence == null) {
+            return true;
+        }
+        if (finishedApplies < sequence) {
+            return false;
+        }
+        ownApply.remove();
+        return true;
+    }
+
+    // persist나 변경 감지로 쌓인 변경은 flush 전까지 이벤트가 없으므로 세션을 본다.
+    // Session.isDirty()는 모든 엔티티를 flush할 때처럼 훑으므로 쓰지 않는다. 대부분의 search는 빈 세션이라 바로 끝나고,
+    // 엔티티가 있으면 대기 중인 insert/delete를 보고 member/team만 로딩 시점 값과 비교한다.
+    private boolean hasUnflushedChanges() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if (holder == null) {
+            return false;
+        }
+        SessionImplementor session = holder.getEntityManager().unwrap(SessionImplementor.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        if (persistenceContext.getNumberOfManagedEntities() == 0 || !persistenceContext.hasNonReadOnlyEntities()) {
+            return false;
+        }
+        // 다른 엔티티의 대기 작업도 보수적으로 변경으로 본다.
+        if (session.getActionQueue().hasAnyQueuedActions()) {
+            return true;
+        }
+        for (Map.Entry<Object, EntityEntry> entry : persistenceContext.reentrantSafeEntityEntries()) {
+            Object entity = entry.getKey();
+            EntityEntry entityEntry = entry.getValue();
+            if ((entity instanceof Member || entity instanceof Team) && entityEntry.requiresDirtyCheck(entity)
+                    && entityEntry.getLoadedState() != null) {
+                EntityPersister persister = entityEntry.getPersister();
+                if (persister.findDirty(persister.getPropertyValues(entity), entityEntry.getLoadedState(), entity, session) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // reloader 스레드에서만 돌아서 반영끼리, 그리고 적재와 겹치지 않는다. DB를 읽는 것도 이 안에서 해야 나중에 커밋된 값이 이긴다.
+    private void apply(MemberWrites writes) {
+        if (writes.isUnknownMembers() || !ready) {
+            requestReload();
+            return;
+        }
+
+        List<Long> memberIds = new ArrayList<>(writes.getMemberIds());
+        List<Long> teamIds = new ArrayList<>(writes.getTeamIds());
+        List<MemberTeamDto> rows = new ArrayList<>();
+        List<Tuple> teams = new ArrayList<>();
+        withEntityManager(em -> {
+            JPAQueryFactory query = new JPAQueryFactory(em);
+            for (int from = 0; from < memberIds.size(); from += REFRESH_CHUNK_SIZE) {
+                rows.addAll(query
+                        .select(projection())
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(member.id.in(memberIds.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, memberIds.size()))))
+                        .fetch());
+            }
+            for (int from = 0; from < teamIds.size(); from += REFRESH_CHUNK_SIZE) {
+                teams.addAll(query
+                        .select(team.id, team.name)
+                        .from(team)
+                        .where(team.id.in(teamIds.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, teamIds.size()))))
+                        .fetch());
+            }
+            return null;
+        });
+
+        Set<Long> found = new HashSet<>();
+        lock.writeLock().lock();
+        try {
+            for (MemberTeamDto row : rows) {
+                columns.upsert(row);
+                found.add(row.getMemberId());
+            }
+            for (Long memberId : memberIds) {
+                if (!found.contains(memberId)) {
+                    columns.remove(memberId);
+                }
+            }
+            for (Tuple row : teams) {
+                columns.renameTeam(row.get(team.id), row.get(team.name));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void requestReload() {
+        dirtyGeneration.incrementAndGet();
+        ready = false;
+        if (reloadQueued.compareAndSet(false, true)) {
+            reloader.execute(() -> {
+                reloadQueued.set(false);
+                loadAll();
+            });
+        }
+    }
+
+    private QMemberTeamDto projection() {
+        return new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+    }
+
+    private <T> T withEntityManager(Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+}
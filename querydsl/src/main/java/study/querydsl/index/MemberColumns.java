@@ -0,0 +1,212 @@
+package study.querydsl.index;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 회원을 행 번호로 나눠 담은 열 저장소. id/나이는 기본형 배열, 회원 이름과 팀은 사전 코드로 담는다.
+ * 삭제는 live 비트만 지우고 자리는 재사용하지 않는다. 동기화는 MemberColumnIndex가 맡는다.
+ */
+class MemberColumns {
+    private static final int NONE = -1;
+    private static final int SPARSE_RATIO = 8;
+
+    private long[] ids = new long[16];
+    private int[] ages = new int[16];
+    private int[] usernameCodes = new int[16];
+    private int[] teamCodes = new int[16];
+    private int rows;
+    private final BitSet live = new BitSet();
+    private final Map<Long, Integer> rowById = new HashMap<>();
+
+    private final Map<String, Integer> usernameCodeByValue = new HashMap<>();
+    private final List<String> usernames = new ArrayList<>();
+
+    private final Map<Long, Integer> teamCodeById = new HashMap<>();
+    private final Map<String, Integer> teamCodeByName = new HashMap<>();
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<String> teamNames = new ArrayList<>();
+    private final List<BitSet> teamRows = new ArrayList<>();
+
+    void upsert(MemberTeamDto dto) {
+        Integer row = rowById.get(dto.getMemberId());
+        if (row == null) {
+            row = append(dto.getMemberId());
+        } else if (teamCodes[row] != NONE) {
+            teamRows.get(teamCodes[row]).clear(row);
+        }
+
+        ages[row] = dto.getAge();
+        usernameCodes[row] = usernameCode(dto.getUsername());
+        teamCodes[row] = dto.getTeamId() == null ? NONE : teamCode(dto.getTeamId(), dto.getTeamName());
+        if (teamCodes[row] != NONE) {
+            teamRows.get(teamCodes[row]).set(row);
+        }
+    }
+
+    void remove(Long memberId) {
+        Integer row = rowById.remove(memberId);
+        if (row == null) {
+            return;
+        }
+        live.clear(row);
+        if (teamCodes[row] != NONE) {
+            teamRows.get(teamCodes[row]).clear(row);
+        }
+    }
+
+    void renameTeam(Long teamId, String teamName) {
+        if (teamCodeById.containsKey(teamId)) {
+            teamCode(teamId, teamName);
+        }
+    }
+
+    int size() {
+        return rowById.size();
+    }
+
+    // MemberRepositoryImpl.search와 같은 조건(team은 left join)으로 거르고 member_id 순으로 돌려준다.
+    List<MemberTeamDto> search(MemberSearchCondition condition) {
+        BitSet candidates;
+        if (hasText(condition.getTeamName())) {
+            Integer teamCode = teamCodeByName.get(condition.getTeamName());
+            if (teamCode == null) {
+                return new ArrayList<>();
+            }
+            candidates = (BitSet) teamRows.get(teamCode).clone();
+        } else {
+            candidates = (BitSet) live.clone();
+        }
+
+        if (hasText(condition.getUsername())) {
+            if (condition.getUsernameMatch() == UsernameMatch.EXACT) {
+                Integer usernameCode = usernameCodeByValue.get(condition.getUsername());
+                if (usernameCode == null) {
+                    return new ArrayList<>();
+                }
+                int code = usernameCode;
+                filter(candidates, row -> usernameCodes[row] == code);
+            } else {
+                // 사전에서 맞는 이름의 코드만 골라두고 행은 코드로 거른다.
+                BitSet codes = matchingUsernameCodes(condition.getUsername(), condition.getUsernameMatch());
+                if (codes.isEmpty()) {
+                    return new ArrayList<>();
+                }
+                filter(candidates, row -> usernameCodes[row] != NONE && codes.get(usernameCodes[row]));
+            }
+        }
+
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            int goe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+            int loe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+            filter(candidates, row -> ages[row] >= goe && ages[row] <= loe);
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>(candidates.cardinality());
+        for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+            result.add(toDto(row));
+        }
+        // 행은 추가된 순서라 id 순이 아닐 수 있다.
+        result.sort((a, b) -> a.getMemberId().compareTo(b.getMemberId()));
+        return result;
+    }
+
+    private BitSet matchingUsernameCodes(String username, UsernameMatch match) {
+        BitSet codes = new BitSet(usernames.size());
+        for (int code = 0; code < usernames.size(); code++) {
+            String value = usernames.get(code);
+            if (match == UsernameMatch.PREFIX ? value.startsWith(username) : value.contains(username)) {
+                codes.set(code);
+            }
+        }
+        return codes;
+    }
+
+    // 후보가 적으면 후보만 확인하고, 많으면 열을 처음부터 훑어 만든 비트셋과 AND 한다.
+    private void filter(BitSet candidates, IntPredicate matches) {
+        if (candidates.cardinality() * SPARSE_RATIO < rows) {
+            for (int row = candidates.nextSetBit(0); row >= 0; row = candidates.nextSetBit(row + 1)) {
+                if (!matches.test(row)) {
+                    candidates.clear(row);
+                }
+            }
+            return;
+        }
+        BitSet matched = new BitSet(rows);
+        for (int row = 0; row < rows; row++) {
+            if (matches.test(row)) {
+                matched.set(row);
+            }
+        }
+        candidates.and(matched);
+    }
+
+    private MemberTeamDto toDto(int row) {
+        int teamCode = teamCodes[row];
+        return new MemberTeamDto(ids[row],
+                usernameCodes[row] == NONE ? null : usernames.get(usernameCodes[row]),
+                ages[row],
+                teamCode == NONE ? null : teamIds.get(teamCode),
+                teamCode == NONE ? null : teamNames.get(teamCode));
+    }
+
+    private int append(Long memberId) {
+        if (rows == ids.length) {
+            int capacity = rows * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            usernameCodes = Arrays.copyOf(usernameCodes, capacity);
+            teamCodes = Arrays.copyOf(teamCodes, capacity);
+        }
+        int row = rows++;
+        ids[row] = memberId;
+        teamCodes[row] = NONE;
+        live.set(row);
+        rowById.put(memberId, row);
+        return row;
+    }
+
+    private int usernameCode(String username) {
+        if (username == null) {
+            return NONE;
+        }
+        return usernameCodeByValue.computeIfAbsent(username, value -> {
+            usernames.add(value);
+            return usernames.size() - 1;
+        });
+    }
+
+    // 팀 이름이 바뀌었으면 사전도 바꾼다.
+    private int teamCode(Long teamId, String teamName) {
+        Integer code = teamCodeById.get(teamId);
+        if (code == null) {
+            code = teamIds.size();
+            teamIds.add(teamId);
+            teamNames.add(teamName);
+            teamRows.add(new BitSet());
+            teamCodeById.put(teamId, code);
+            if (teamName != null) {
+                teamCodeByName.put(teamName, code);
+            }
+        } else if (!Objects.equals(teamNames.get(code), teamName)) {
+            teamCodeByName.remove(teamNames.get(code), code);
+            teamNames.set(code, teamName);
+            if (teamName != null) {
+                teamCodeByName.put(teamName, code);
+            }
+        }
+        return code;
+    }
+}
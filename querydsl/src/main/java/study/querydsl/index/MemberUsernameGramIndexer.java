@@ -0,0 +1,200 @@
+package study.querydsl.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.querydsl.event.MemberWriteSubscriber;
+import study.querydsl.event.MemberWriteTracker;
+import study.querydsl.event.MemberWrites;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * member_username_gram을 회원 이름 변경에 맞춰 같은 트랜잭션 안에서 유지한다.
+ * MemberWriteTracker가 모아 준 엔티티 이름 변경을 그 flush가 끝날 때 세션의 커넥션으로 한 번에 batch insert 한다.
+ * flush 직후에 쓰므로 같은 트랜잭션의 다음 CONTAINS 검색부터 보이고, 롤백되면 같이 롤백된다.
+ * 회원 삭제(벌크 포함)는 FK의 on delete cascade가 지운다. 이름을 바꾸는 벌크 update는 커밋 직전에 다시 만드는데,
+ * 바꾼 회원 id를 알려준 문장이면 그 회원만, 모르면 전체를 다시 만든다.
+ */
+@Slf4j
+@Component
+public class MemberUsernameGramIndexer implements MemberWriteSubscriber {
+    private static final String DELETE_SQL = "delete from member_username_gram where member_id = ?";
+    private static final String INSERT_SQL = "insert into member_username_gram (gram, member_id) values (?, ?)";
+    private static final int BATCH_SIZE = 1000;
+    private static final int SELECT_CHUNK_SIZE = 500;
+
+    private final EntityManagerFactory emf;
+    private final MemberWriteTracker memberWriteTracker;
+
+    public MemberUsernameGramIndexer(EntityManagerFactory emf, MemberWriteTracker memberWriteTracker) {
+        this.emf = emf;
+        this.memberWriteTracker = memberWriteTracker;
+    }
+
+    @PostConstruct
+    public void register() {
+        memberWriteTracker.subscribe(this);
+    }
+
+    /**
+     * 기존 데이터로 기동했는데 색인이 비어 있으면 한 번 만든다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.unwrap(Session.class).doWork(connection -> {
+                if (!exists(connection, "select 1 from member_username_gram")
+                        && exists(connection, "select 1 from member")) {
+                    rebuild(connection);
+                }
+            });
+            em.getTransaction().commit();
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    // 같은 flush에서 insert된 회원은 지울 gram이 없다.
+    @Override
+    public void afterFlush(SessionImplementor session, MemberWrites writes) {
+        Map<Long, String> usernames = writes.getUsernames();
+        if (usernames.isEmpty()) {
+            return;
+        }
+        Set<Long> inserted = writes.getInsertedIds();
+        session.doWork(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+                int batched = 0;
+                for (Long memberId : usernames.keySet()) {
+                    if (!inserted.contains(memberId)) {
+                        delete.setLong(1, memberId);
+                        delete.addBatch();
+                        batched++;
+                    }
+                }
+                if (batched > 0) {
+                    delete.executeBatch();
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                int batched = 0;
+                for (Map.Entry<Long, String> entry : usernames.entrySet()) {
+                    batched = addGrams(insert, entry.getKey(), entry.getValue(), batched);
+                }
+                if (batched % BATCH_SIZE != 0) {
+                    insert.executeBatch();
+                }
+            }
+        });
+        usernames.clear();
+        inserted.clear();
+    }
+
+    // 이름을 바꾼 벌크 update는 커밋 직전, 마지막 flush 뒤에 한 번만 다시 만든다.
+    @Override
+    public void beforeCommit(SessionImplementor session, MemberWrites writes) {
+        if (writes.isUnknownUsernames()) {
+            session.doWork(this::rebuild);
+        } else if (!writes.getRenamedIds().isEmpty()) {
+            List<Long> memberIds = new ArrayList<>(writes.getRenamedIds());
+            session.doWork(connection -> rebuild(connection, memberIds));
+        }
+        writes.getRenamedIds().clear();
+    }
+
+    @Override
+    public void writtenOutsideTransaction() {
+        log.warn("트랜잭션 밖의 회원명 변경은 member_username_gram에 반영되지 않습니다.");
+    }
+
+    private void rebuild(Connection connection) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement delete = connection.createStatement()) {
+            delete.executeUpdate("delete from member_username_gram");
+        }
+        try (PreparedStatement select = connection.prepareStatement("select member_id, username from member");
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL);
+             ResultSet rs = select.executeQuery()) {
+            int batched = 0;
+            while (rs.next()) {
+                batched = addGrams(insert, rs.getLong(1), rs.getString(2), batched);
+            }
+            if (batched % BATCH_SIZE != 0) {
+                insert.executeBatch();
+            }
+        }
+        log.info("member_username_gram을 다시 만들었습니다. {}ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void rebuild(Connection connection, List<Long> memberIds) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+            for (Long memberId : memberIds) {
+                delete.setLong(1, memberId);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            int batched = 0;
+            for (int from = 0; from < memberIds.size(); from += SELECT_CHUNK_SIZE) {
+                List<Long> chunk = memberIds.subList(from, Math.min(from + SELECT_CHUNK_SIZE, memberIds.size()));
+                String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                try (PreparedStatement select = connection.prepareStatement(
+                        "select member_id, username from member where member_id in (" + placeholders + ")")) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        select.setLong(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            batched = addGrams(insert, rs.getLong(1), rs.getString(2), batched);
+                        }
+                    }
+                }
+            }
+            if (batched % BATCH_SIZE != 0) {
+                insert.executeBatch();
+            }
+        }
+    }
+
+    // BATCH_SIZE개가 찰 때마다 내보내고, 지금까지 batch에 넣은 개수를 돌려준다.
+    private static int addGrams(PreparedStatement insert, long memberId, String username, int batched) throws SQLException {
+        for (String gram : UsernameGrams.of(username)) {
+            insert.setString(1, gram);
+            insert.setLong(2, memberId);
+            insert.addBatch();
+            if (++batched % BATCH_SIZE == 0) {
+                insert.executeBatch();
+            }
+        }
+        return batched;
+    }
+
+    private static boolean exists(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next();
+        }
+    }
+}
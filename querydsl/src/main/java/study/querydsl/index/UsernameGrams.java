@@ -0,0 +1,69 @@
+package study.querydsl.index;
+
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAExpressions;
+import study.querydsl.domain.QMember;
+import study.querydsl.domain.QMemberUsernameGram;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.UsernameMatch;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 회원명 검색 조건과 트라이그램 계산.
+ * CONTAINS는 검색어의 트라이그램을 모두 가진 회원만 색인에서 골라낸 뒤 like로 다시 확인한다.
+ * 3글자보다 짧은 검색어는 트라이그램이 없어 like만 쓴다. 이런 검색어는 대부분의 회원에 걸리므로 색인의 이득도 적다.
+ */
+public final class UsernameGrams {
+    public static final int GRAM_LENGTH = 3;
+
+    private static final QMemberUsernameGram gram = new QMemberUsernameGram("usernameGram");
+
+    private UsernameGrams() {
+    }
+
+    // 이름에 나오는 연속된 3글자를 중복 없이 모은다. 3글자보다 짧으면 비어 있다.
+    public static Set<String> of(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (value == null) {
+            return grams;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    public static BooleanExpression matches(QMember member, MemberSearchCondition condition) {
+        String username = condition.getUsername();
+        if (!hasText(username)) {
+            return null;
+        }
+        UsernameMatch match = condition.getUsernameMatch();
+        if (match == UsernameMatch.PREFIX) {
+            return member.username.startsWith(username);
+        }
+        if (match == UsernameMatch.CONTAINS) {
+            Set<String> grams = of(username);
+            BooleanExpression contains = member.username.contains(username);
+            if (grams.isEmpty()) {
+                return contains;
+            }
+            // in(...)은 값이 하나면 =로 바꾸므로, 트라이그램 수와 관계없이 같은 JPQL이 나오도록 in을 직접 만든다.
+            return member.id.in(JPAExpressions
+                    .select(gram.member.id)
+                    .from(gram)
+                    .where(Expressions.booleanOperation(Ops.IN, gram.gram, ConstantImpl.create(grams)))
+                    .groupBy(gram.member.id)
+                    .having(gram.gram.count().eq((long) grams.size())))
+                    .and(contains);
+        }
+        return member.username.eq(username);
+    }
+}
@@ -0,0 +1,128 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionException;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.beans.Introspector;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Projections.bean/fields 대신 쓰는 프로젝션. setter(없으면 필드)를 MethodHandle로 한 번만 찾아서
+ * 타입과 프로퍼티 목록별로 캐시하고, 행마다 리플렉션 없이 invokeExact로 값을 넣는다.
+ * 프로퍼티 이름은 경로 이름이나 as()로 준 별칭을 쓴다.
+ * 핸들이 static final이 아닌 인스턴스 필드에 있어서 JIT가 상수로 접지 못한다.
+ * ProjectionNewInstanceBenchmark에서 Projections.bean과 차이가 오차 범위 안이었다.
+ */
+public class MethodHandleBean<T> extends FactoryExpressionBase<T> {
+    // 타입별 캐시는 ClassValue로 타입의 Class에 붙여서, 타입을 읽은 클래스로더가 내려가면 같이 수거된다.
+    private static final ClassValue<Map<List<String>, Accessor>> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Map<List<String>, Accessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final List<Expression<?>> args;
+    private final Accessor accessor;
+
+    MethodHandleBean(Class<? extends T> type, Expression<?>... args) {
+        super(type);
+        this.args = List.of(args);
+        String[] names = Arrays.stream(args).map(MethodHandleBean::propertyName).toArray(String[]::new);
+        this.accessor = ACCESSORS.get(type).computeIfAbsent(List.of(names), key -> Accessor.of(type, names));
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T newInstance(Object... values) {
+        try {
+            Object bean = accessor.constructor.invokeExact();
+            for (int i = 0; i < values.length; i++) {
+                // 원시 타입에 null을 넣을 수 없으므로 null은 건너뛰고 기본값을 둔다.
+                if (values[i] != null) {
+                    accessor.setters[i].invokeExact(bean, values[i]);
+                }
+            }
+            return (T) bean;
+        } catch (Throwable e) {
+            throw new ExpressionException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    private static String propertyName(Expression<?> expression) {
+        if (expression instanceof Path) {
+            return ((Path<?>) expression).getMetadata().getName();
+        }
+        if (expression instanceof Operation && ((Operation<?>) expression).getOperator() == Ops.ALIAS) {
+            return propertyName(((Operation<?>) expression).getArg(1));
+        }
+        throw new IllegalArgumentException("Unsupported expression " + expression + ", use as() to name it");
+    }
+
+    private static class Accessor {
+        private final MethodHandle constructor;
+        private final MethodHandle[] setters;
+
+        private Accessor(MethodHandle constructor, MethodHandle[] setters) {
+            this.constructor = constructor;
+            this.setters = setters;
+        }
+
+        static Accessor of(Class<?> type, String[] names) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+                MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+                MethodHandle[] setters = new MethodHandle[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    setters[i] = setter(lookup, type, names[i])
+                            .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                }
+                return new Accessor(constructor, setters);
+            } catch (ReflectiveOperationException e) {
+                throw new ExpressionException(e.getMessage(), e);
+            }
+        }
+
+        private static MethodHandle setter(MethodHandles.Lookup lookup, Class<?> type, String name)
+                throws ReflectiveOperationException {
+            for (Method method : type.getMethods()) {
+                if (method.getParameterCount() == 1 && method.getName().startsWith("set")
+                        && Introspector.decapitalize(method.getName().substring(3)).equals(name)) {
+                    return lookup.unreflect(method);
+                }
+            }
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.getName().equals(name)) {
+                        return lookup.unreflectSetter(field);
+                    }
+                }
+            }
+            throw new NoSuchFieldException(type.getName() + "." + name);
+        }
+    }
+}
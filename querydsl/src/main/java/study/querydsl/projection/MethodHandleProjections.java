@@ -0,0 +1,18 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+
+// Projections.bean/fields/constructor와 같은 모양으로 쓰는 MethodHandle 기반 프로젝션
+public final class MethodHandleProjections {
+
+    private MethodHandleProjections() {
+    }
+
+    public static <T> MethodHandleBean<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return new MethodHandleBean<>(type, exprs);
+    }
+
+    public static <T> MethodHandleConstructor<T> constructor(Class<? extends T> type, Expression<?>... exprs) {
+        return new MethodHandleConstructor<>(type, exprs);
+    }
+}
@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 여러 스레드가 짧은 시간 안에 요청한 키를 모아 batchLoader 한 번으로 읽고 각 호출자에게 나눠준다.
+ * 첫 요청 뒤 window가 지나거나 maxBatchSize개가 모이면 executor에서 읽는다. 같은 키는 한 번만 읽는다.
+ * 트랜잭션 안에서 부르면 모으지 않고 호출한 스레드에서 바로 읽는다. 쓰기 트랜잭션은 커밋 전 변경을 봐야 하고,
+ * 읽기 전용이라도 커넥션을 잡은 채 다른 스레드의 커넥션을 기다리면 풀이 마를 때 서로 기다리다 멈출 수 있다.
+ */
+public class CoalescingLoader<K, V> implements AutoCloseable {
+    private final Function<Collection<K>, Map<K, V>> batchLoader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Executor executor;
+    private final ScheduledExecutorService timer;
+    private final Object lock = new Object();
+    private Map<K, CompletableFuture<V>> pending = new LinkedHashMap<>();
+
+    public CoalescingLoader(String name, Function<Collection<K>, Map<K, V>> batchLoader,
+                            long windowNanos, int maxBatchSize, Executor executor) {
+        this.batchLoader = batchLoader;
+        this.windowNanos = windowNanos;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.executor = executor;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-coalescing");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 없는 키는 null로 완료된다.
+    public CompletableFuture<V> load(K key) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return CompletableFuture.completedFuture(batchLoader.apply(Collections.singleton(key)).get(key));
+        }
+
+        CompletableFuture<V> future;
+        Map<K, CompletableFuture<V>> full = null;
+        boolean first = false;
+        synchronized (lock) {
+            future = pending.get(key);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(key, future);
+            first = pending.size() == 1;
+            if (pending.size() >= maxBatchSize) {
+                full = drain();
+            }
+        }
+
+        if (full != null) {
+            Map<K, CompletableFuture<V>> batch = full;
+            executor.execute(() -> dispatch(batch));
+        } else if (first) {
+            timer.schedule(this::dispatchPending, windowNanos, TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    public V get(K key) {
+        try {
+            return load(key).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        dispatchPending();
+    }
+
+    private void dispatchPending() {
+        Map<K, CompletableFuture<V>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = drain();
+        }
+        executor.execute(() -> dispatch(batch));
+    }
+
+    private Map<K, CompletableFuture<V>> drain() {
+        Map<K, CompletableFuture<V>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        try {
+            Map<K, V> values = batchLoader.apply(batch.keySet());
+            batch.forEach((key, future) -> future.complete(values.get(key)));
+        } catch (Throwable e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.QMember;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.QTeamDto;
+import study.querydsl.dto.TeamDto;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * findById처럼 id 하나로 회원/팀을 찾는 호출을 CoalescingLoader로 모아 id in (...) 한 번으로 읽는다.
+ * in 목록은 hibernate.query.in_clause_parameter_padding으로 2의 거듭제곱 길이로 채워져 실행 계획을 재사용한다.
+ * 모은 조회는 전용 스레드의 읽기 전용 트랜잭션에서 돌고, 결과는 영속성 컨텍스트에 붙지 않는 dto다.
+ * dbExecutor에서 돌던 작업이 결과를 기다리다 자기 조회를 큐에 묶어두지 않도록 스레드를 나눠 쓴다.
+ * 트랜잭션 안의 호출은 모으지 않고 그 트랜잭션의 커넥션으로 바로 읽는다.
+ */
+@Repository
+public class IdLookupLoader {
+    private final JPAQueryFactory query;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService executor;
+    private final CoalescingLoader<Long, MemberTeamDto> members;
+    private final CoalescingLoader<Long, TeamDto> teams;
+    private QMember member = new QMember("member1");
+
+    public IdLookupLoader(JPAQueryFactory query, PlatformTransactionManager transactionManager,
+                          @Value("${member.id-lookup.window:2ms}") Duration window,
+                          @Value("${member.id-lookup.max-batch-size:256}") int maxBatchSize,
+                          @Value("${member.id-lookup.threads:2}") int threads) {
+        this.query = query;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "id-lookup-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.members = new CoalescingLoader<>("member", ids -> readOnly.execute(status -> fetchMembers(ids)),
+                window.toNanos(), maxBatchSize, executor);
+        this.teams = new CoalescingLoader<>("team", ids -> readOnly.execute(status -> fetchTeams(ids)),
+                window.toNanos(), maxBatchSize, executor);
+    }
+
+    // 없는 id면 null
+    public MemberTeamDto findMember(Long memberId) {
+        return members.get(memberId);
+    }
+
+    public CompletableFuture<MemberTeamDto> loadMember(Long memberId) {
+        return members.load(memberId);
+    }
+
+    public TeamDto findTeam(Long teamId) {
+        return teams.get(teamId);
+    }
+
+    public CompletableFuture<TeamDto> loadTeam(Long teamId) {
+        return teams.load(teamId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        members.close();
+        teams.close();
+        executor.shutdown();
+    }
+
+    private Map<Long, MemberTeamDto> fetchMembers(Collection<Long> memberIds) {
+        List<MemberTeamDto> result = query
+                .select(new QMemberTeamDto(member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.in(memberIds))
+                .fetch();
+
+        Map<Long, MemberTeamDto> byId = new HashMap<>();
+        for (MemberTeamDto dto : result) {
+            byId.put(dto.getMemberId(), dto);
+        }
+        return byId;
+    }
+
+    private Map<Long, TeamDto> fetchTeams(Collection<Long> teamIds) {
+        List<TeamDto> result = query
+                .select(new QTeamDto(team.id, team.name))
+                .from(team)
+                .where(team.id.in(teamIds))
+                .fetch();
+
+        Map<Long, TeamDto> byId = new HashMap<>();
+        for (TeamDto dto : result) {
+            byId.put(dto.getTeamId(), dto);
+        }
+        return byId;
+    }
+}
@@ -0,0 +1,174 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.diagnostics.QueryMetrics;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.QMember;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchNormalizer;
+import study.querydsl.event.MemberWriteTracker;
+
+import javax.persistence.EntityManager;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 조건에 맞는 회원을 id 순으로 chunkSize개씩 잘라 벌크 연산한다.
+ * 트랜잭션 밖에서 부르면 chunk마다 커밋하고, 트랜잭션 안에서 부르면 그 트랜잭션에 참여한다.
+ * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 chunk가 끝날 때마다 관리 중인 회원을 refresh/detach 한다.
+ * refresh가 아직 반영 안 된 변경을 덮어쓰지 않도록 chunk마다 벌크 연산 전에 flush 한다.
+ * chunk 회원 id와 연산 전후 팀을 MemberWriteTracker에 알려주므로 team_stat은 그 팀만, 색인은 그 회원만 다시 맞춘다.
+ */
+@Repository
+public class MemberBulkRepository {
+    private final EntityManager em;
+    private final JPAQueryFactory query;
+    private final TransactionTemplate transactionTemplate;
+    private final QueryMetrics queryMetrics;
+    private final MemberWriteTracker memberWriteTracker;
+    private final int defaultChunkSize;
+    private QMember member = new QMember("member1");
+
+    public MemberBulkRepository(EntityManager em, JPAQueryFactory query, PlatformTransactionManager transactionManager,
+                                QueryMetrics queryMetrics, MemberWriteTracker memberWriteTracker,
+                                @Value("${member.bulk.chunk-size:1000}") int defaultChunkSize) {
+        this.em = em;
+        this.query = query;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queryMetrics = queryMetrics;
+        this.memberWriteTracker = memberWriteTracker;
+        this.defaultChunkSize = defaultChunkSize;
+    }
+
+    public long addAge(MemberSearchCondition condition, int amount) {
+        return addAge(condition, amount, defaultChunkSize);
+    }
+
+    public long addAge(MemberSearchCondition condition, int amount, int chunkSize) {
+        return queryMetrics.recordBulk("bulk.addAge", condition, () -> inChunks(condition, chunkSize, false, ids -> query
+                .update(member)
+                .set(member.age, member.age.add(amount))
+                .where(member.id.in(ids))
+                .execute()));
+    }
+
+    public long changeTeam(MemberSearchCondition condition, Long teamId) {
+        return changeTeam(condition, teamId, defaultChunkSize);
+    }
+
+    public long changeTeam(MemberSearchCondition condition, Long teamId, int chunkSize) {
+        return queryMetrics.recordBulk("bulk.changeTeam", condition, () -> inChunks(condition, chunkSize, false, ids -> query
+                .update(member)
+                .set(member.team, em.getReference(Team.class, teamId))
+                .where(member.id.in(ids))
+                .execute()));
+    }
+
+    public long delete(MemberSearchCondition condition) {
+        return delete(condition, defaultChunkSize);
+    }
+
+    public long delete(MemberSearchCondition condition, int chunkSize) {
+        return queryMetrics.recordBulk("bulk.delete", condition, () -> inChunks(condition, chunkSize, true, ids -> query
+                .delete(member)
+                .where(member.id.in(ids))
+                .execute()));
+    }
+
+    private long inChunks(MemberSearchCondition raw, int chunkSize, boolean removes,
+                          Function<List<Long>, Long> bulk) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive but was " + chunkSize);
+        }
+        // 맞는 회원이 있을 수 없는 조건이면 chunk를 읽지 않는다.
+        MemberSearchCondition condition = MemberSearchNormalizer.normalize(raw).orElse(null);
+        if (condition == null) {
+            return 0;
+        }
+        long total = 0;
+        Long lastId = null;
+        while (true) {
+            Long after = lastId;
+            Chunk chunk = transactionTemplate.execute(status -> {
+                List<Long> ids = nextChunk(condition, after, chunkSize);
+                if (ids.isEmpty()) {
+                    return new Chunk(ids, 0);
+                }
+                em.flush();
+                Set<Long> teamIds = new LinkedHashSet<>(teamIdsOf(ids));
+                long affected = memberWriteTracker.reporting(ids, () -> bulk.apply(ids));
+                if (!removes) {
+                    teamIds.addAll(teamIdsOf(ids));
+                }
+                memberWriteTracker.markTeamsChanged(teamIds);
+                syncPersistenceContext(ids, removes);
+                return new Chunk(ids, affected);
+            });
+
+            total += chunk.affected;
+            if (chunk.ids.size() < chunkSize) {
+                return total;
+            }
+            lastId = chunk.ids.get(chunk.ids.size() - 1);
+        }
+    }
+
+    private List<Long> nextChunk(MemberSearchCondition condition, Long lastId, int chunkSize) {
+        return query
+                .select(member.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberSearchPredicates.of(member, team, condition))
+                .where(lastId != null ? member.id.gt(lastId) : null)
+                .orderBy(member.id.asc())
+                .limit(chunkSize)
+                .fetch();
+    }
+
+    private List<Long> teamIdsOf(List<Long> ids) {
+        return query
+                .selectDistinct(member.team.id)
+                .from(member)
+                .where(member.id.in(ids), member.team.isNotNull())
+                .fetch();
+    }
+
+    private void syncPersistenceContext(List<Long> ids, boolean removes) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        for (Long id : ids) {
+            Object managed = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+            if (managed == null) {
+                continue;
+            }
+            if (removes) {
+                em.detach(managed);
+            } else {
+                em.refresh(managed);
+            }
+        }
+    }
+
+    private static class Chunk {
+        private final List<Long> ids;
+        private final long affected;
+
+        private Chunk(List<Long> ids, long affected) {
+            this.ids = ids;
+            this.affected = affected;
+        }
+    }
+}
@@ -1,47 +1,72 @@
 package study.querydsl.repository;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import study.querydsl.diagnostics.IndexAdvisor;
+import study.querydsl.diagnostics.QueryMetrics;
 import study.querydsl.domain.QMember;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchNormalizer;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.index.UsernameGrams;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.domain.QMember.member;
 import static study.querydsl.domain.QTeam.team;
+import static study.querydsl.repository.MemberSearchPredicates.ageGoe;
+import static study.querydsl.repository.MemberSearchPredicates.ageLoe;
+import static study.querydsl.repository.MemberSearchPredicates.teamNameEq;
+import static study.querydsl.repository.MemberSearchPredicates.usernameMatches;
 
 @Repository
 @RequiredArgsConstructor
 public class MemberJPARepository {
     private final EntityManager em;
     private final JPAQueryFactory query;
+    private final IndexAdvisor indexAdvisor;
+    private final QueryMetrics queryMetrics;
     private QMember member = new QMember("member1");
 
-    public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition){
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchByBuilder(MemberSearchCondition raw){
+        MemberSearchCondition condition = MemberSearchNormalizer.normalize(raw).orElse(null);
+        if (condition == null) {
+            return queryMetrics.record("jpa.searchByBuilder", raw, ArrayList::new);
+        }
+
         BooleanBuilder builder = new BooleanBuilder();
         if (hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
+            builder.and(UsernameGrams.matches(member, condition));
         }
         if (hasText(condition.getTeamName())) {
             builder.and(team.name.eq(condition.getTeamName()));
         }
         if (condition.getAgeGoe() != null) {
-            builder.and(member.age.goe(condition.getAgeLoe()));
+            builder.and(member.age.goe(condition.getAgeGoe()));
         }
         if (condition.getAgeLoe() != null) {
             builder.and(member.age.loe(condition.getAgeLoe()));
         }
 
-        return query
+        return queryMetrics.record("jpa.searchByBuilder", condition, () -> indexAdvisor.record(condition, () -> query
                 .select(new QMemberTeamDto(member.id.as("memberId"),
                         member.username,
                         member.age,
@@ -50,11 +75,16 @@ public class MemberJPARepository {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(builder)
-                .fetch();
+                .fetch()));
     }
 
-    public List<MemberTeamDto> search(MemberSearchCondition condition){
-        return query
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> search(MemberSearchCondition raw){
+        MemberSearchCondition condition = MemberSearchNormalizer.normalize(raw).orElse(null);
+        if (condition == null) {
+            return queryMetrics.record("jpa.search", raw, ArrayList::new);
+        }
+        return queryMetrics.record("jpa.search", condition, () -> indexAdvisor.record(condition, () -> query
                 .select(new QMemberTeamDto(member.id.as("memberId"),
                         member.username,
                         member.age,
@@ -63,30 +93,55 @@ public class MemberJPARepository {
                 .from(member)
                 .leftJoin(member.team, team)
                 .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageBetween(condition.getAgeLoe(), condition.getAgeGoe())
+                        usernameMatches(member, condition),
+                        teamNameEq(team, condition.getTeamName()),
+                        ageBetween(condition.getAgeGoe(), condition.getAgeLoe())
                 )
-                .fetch();
-    }
-
-    private BooleanExpression ageBetween(Integer ageLoe, Integer ageGoe){
-        return ageLoe(ageLoe).and(ageGoe(ageGoe));
+                .fetch()));
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
+    /**
+     * 결과를 리스트로 모으지 않고 ScrollableResults로 fetchSize만큼씩 읽어 넘긴다.
+     * 트랜잭션 안에서 호출해야 하고, 다 쓴 스트림은 반드시 닫아야 커넥션 자원이 반납된다.
+     */
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition raw, int fetchSize){
+        MemberSearchCondition condition = MemberSearchNormalizer.normalize(raw).orElse(null);
+        if (condition == null) {
+            return Stream.empty();
+        }
+        CloseableIterator<MemberTeamDto> iterator = query
+                .select(new QMemberTeamDto(member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberSearchPredicates.of(member, team, condition))
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.READ_ONLY, true)
+                .iterate();
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close);
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    public long searchForEach(MemberSearchCondition condition, int fetchSize, Consumer<MemberTeamDto> consumer){
+        long count = 0;
+        try (Stream<MemberTeamDto> stream = searchStream(condition, fetchSize)) {
+            for (MemberTeamDto memberTeamDto : (Iterable<MemberTeamDto>) stream::iterator) {
+                consumer.accept(memberTeamDto);
+                count++;
+            }
+        }
+        return count;
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    // 한쪽 경계만 있으면 그 경계만 쓴다. 경계가 뒤집힌 조건은 normalize 단계에서 걸러진다.
+    private BooleanExpression ageBetween(Integer ageGoe, Integer ageLoe){
+        if (ageGoe != null && ageLoe != null) {
+            return member.age.between(ageGoe, ageLoe);
+        }
+        return ageGoe != null ? ageGoe(member, ageGoe) : ageLoe(member, ageLoe);
     }
 }
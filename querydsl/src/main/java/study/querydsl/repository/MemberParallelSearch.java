@@ -0,0 +1,143 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.domain.QMember;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchNormalizer;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 넓은 조건의 검색을 member_id 구간으로 나눠 여러 스레드에서 실행하고 합친다.
+ * 파티션마다 자기 EntityManager로 읽는다. 파티션 스레드는 모든 호출이 함께 쓰므로
+ * 파티션이 동시에 쓰는 커넥션 수는 호출 수와 관계없이 커넥션 풀 크기보다 하나 적다.
+ * 호출한 스레드가 이미 커넥션을 쥐고 있으면(트랜잭션 안이거나 open-in-view 세션이 조회한 뒤) 나누지 않고
+ * 그 커넥션으로 한 번에 읽는다. 이런 호출자들이 풀을 다 쥔 채 파티션을 기다리면 아무도 진행하지 못하기 때문이다.
+ */
+@Repository
+public class MemberParallelSearch {
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private QMember member = new QMember("member1");
+
+    public MemberParallelSearch(EntityManager em, EntityManagerFactory emf,
+                                @Value("${member.parallel-search.parallelism:4}") int parallelism,
+                                @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize) {
+        this.em = em;
+        this.emf = emf;
+        this.parallelism = Math.max(1, Math.min(parallelism, maximumPoolSize - 1));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "member-search-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // ordered면 member_id 순서로 돌려준다.
+    public List<MemberTeamDto> search(MemberSearchCondition raw, boolean ordered) {
+        MemberSearchCondition condition = MemberSearchNormalizer.normalize(raw).orElse(null);
+        if (condition == null) {
+            return new ArrayList<>();
+        }
+        if (holdsConnection()) {
+            return searchRange(em, condition, null, null, ordered);
+        }
+
+        Tuple range = withEntityManager(em -> new JPAQueryFactory(em)
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .fetchOne());
+        Long minId = range.get(member.id.min());
+        Long maxId = range.get(member.id.max());
+        if (minId == null) {
+            return new ArrayList<>();
+        }
+
+        long span = maxId - minId + 1;
+        int partitions = (int) Math.min(parallelism, span);
+        long step = (span + partitions - 1) / partitions;
+
+        List<CompletableFuture<List<MemberTeamDto>>> futures = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += step) {
+            long to = Math.min(from + step - 1, maxId);
+            long lower = from;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> withEntityManager(em -> searchRange(em, condition, lower, to, ordered)), executor));
+        }
+
+        // 파티션 순서대로 이어 붙이면 id 순서가 유지된다.
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (CompletableFuture<List<MemberTeamDto>> future : futures) {
+            result.addAll(future.join());
+        }
+        return result;
+    }
+
+    private List<MemberTeamDto> searchRange(EntityManager em, MemberSearchCondition condition,
+                                            Long fromId, Long toId, boolean ordered) {
+        JPAQuery<MemberTeamDto> query = new JPAQueryFactory(em)
+                .select(new QMemberTeamDto(member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberSearchPredicates.of(member, team, condition))
+                .where(fromId != null ? member.id.between(fromId, toId) : null);
+        if (ordered) {
+            query.orderBy(member.id.asc());
+        }
+        return query.fetch();
+    }
+
+    private boolean holdsConnection() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return true;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        return holder != null && holder.getEntityManager().unwrap(SessionImplementor.class)
+                .getJdbcCoordinator().getLogicalConnection().isPhysicallyConnected();
+    }
+
+    private <T> T withEntityManager(Function<EntityManager, T> work) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
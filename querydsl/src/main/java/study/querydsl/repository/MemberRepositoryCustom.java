@@ -1,6 +1,10 @@
 package study.querydsl.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSortKey;
 import study.querydsl.dto.MemberTeamDto;
 
 import java.util.List;
@@ -8,4 +12,14 @@ import java.util.List;
 public interface MemberRepositoryCustom {
 
     public List<MemberTeamDto> search(MemberSearchCondition condition);
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable);
+
+    /**
+     * 조건마다 search 결과를 같은 순서로 돌려준다. 한 트랜잭션 안에서 서로 다른 조건마다 쿼리를 하나씩 실행하므로
+     * search를 여러 번 부르는 것보다 DB 왕복이 줄지는 않는다.
+     */
+    public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conditions);
+
+    public Slice<MemberTeamDto> searchByCursor(MemberSearchCondition condition, Long lastMemberId, MemberSortKey sortKey, int size);
 }
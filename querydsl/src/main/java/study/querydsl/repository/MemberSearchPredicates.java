@@ -0,0 +1,45 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import study.querydsl.domain.QMember;
+import study.querydsl.domain.QTeam;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.index.UsernameGrams;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색 조건을 where 절 조각으로 바꾼다. 회원 검색을 하는 리포지토리는 모두 이 조각을 쓴다.
+ * 값이 없는 조건은 null이고 where(...)는 null을 건너뛴다. team은 member에 left join 되어 있어야 한다.
+ */
+final class MemberSearchPredicates {
+
+    private MemberSearchPredicates() {
+    }
+
+    static Predicate[] of(QMember member, QTeam team, MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameMatches(member, condition),
+                teamNameEq(team, condition.getTeamName()),
+                ageGoe(member, condition.getAgeGoe()),
+                ageLoe(member, condition.getAgeLoe())
+        };
+    }
+
+    static BooleanExpression usernameMatches(QMember member, MemberSearchCondition condition) {
+        return UsernameGrams.matches(member, condition);
+    }
+
+    static BooleanExpression teamNameEq(QTeam team, String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    static BooleanExpression ageGoe(QMember member, Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    static BooleanExpression ageLoe(QMember member, Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,149 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import study.querydsl.domain.QMember;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchShape;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.index.UsernameGrams;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 검색 모양(32가지)별 JPQL을 한 번만 만들어 두고 파라미터만 바인딩한다.
+ * 매 호출마다 프로젝션과 where 표현식 트리를 만들고 JPQL로 직렬화하는 비용이 없어지고,
+ * 같은 문자열 인스턴스로 하이버네이트 쿼리 플랜 캐시를 조회한다.
+ * where 절은 다른 검색과 같은 MemberSearchPredicates를 견본 값으로 직렬화해서 얻고,
+ * 견본 값이 들어간 자리(?1, ?2, ...)마다 조건의 어느 값을 넣을지 기억해 둔다.
+ * CONTAINS는 트라이그램이 없는 짧은 검색어용 템플릿을 따로 둔다.
+ */
+class MemberSearchTemplates {
+    private static final int MASKS = 64;
+    private static final char ESCAPE = '!';
+    private static final String SELECT = "select new " + MemberTeamDto.class.getName()
+            + "(member1.id, member1.username, member1.age, team.id, team.name)"
+            + " from Member member1 left join member1.team team";
+    private static final QMember member = new QMember("member1");
+    private static final Template[] TEMPLATES = new Template[MASKS];
+    private static final Template[] SHORT_CONTAINS_TEMPLATES = new Template[MASKS];
+
+    static {
+        for (MemberSearchShape shape : MemberSearchShape.values()) {
+            TEMPLATES[shape.mask()] = render(shape, "usrx");
+            if (shape.usernameMatch() == UsernameMatch.CONTAINS) {
+                SHORT_CONTAINS_TEMPLATES[shape.mask()] = render(shape, "us");
+            }
+        }
+    }
+
+    private MemberSearchTemplates() {
+    }
+
+    static TypedQuery<MemberTeamDto> create(EntityManager em, MemberSearchCondition condition) {
+        MemberSearchShape shape = MemberSearchShape.of(condition);
+        boolean shortContains = shape.usernameMatch() == UsernameMatch.CONTAINS
+                && UsernameGrams.of(condition.getUsername()).isEmpty();
+        Template template = (shortContains ? SHORT_CONTAINS_TEMPLATES : TEMPLATES)[shape.mask()];
+        TypedQuery<MemberTeamDto> query = em.createQuery(template.jpql, MemberTeamDto.class);
+        for (int i = 0; i < template.slots.size(); i++) {
+            query.setParameter(i + 1, template.slots.get(i).value(condition));
+        }
+        return query;
+    }
+
+    private static Template render(MemberSearchShape shape, String sampleUsername) {
+        MemberSearchCondition sample = new MemberSearchCondition();
+        if (shape.hasUsername()) sample.setUsername(sampleUsername);
+        sample.setUsernameMatch(shape.usernameMatch());
+        if (shape.hasTeamName()) sample.setTeamName("sampleTeam");
+        if (shape.hasAgeGoe()) sample.setAgeGoe(7);
+        if (shape.hasAgeLoe()) sample.setAgeLoe(8);
+
+        Predicate where = ExpressionUtils.allOf(MemberSearchPredicates.of(member, team, sample));
+        if (where == null) {
+            return new Template(SELECT, new ArrayList<>());
+        }
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.handle(where);
+        String jpql = SELECT + " where " + serializer;
+
+        List<Slot> slots = new ArrayList<>();
+        for (Object constant : serializer.getConstants()) {
+            slots.add(Slot.of(constant, sample, jpql));
+        }
+        return new Template(jpql, slots);
+    }
+
+    // Querydsl의 startsWith/contains와 같은 escape 문자를 쓴다.
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (char c : value.toCharArray()) {
+            if (c == ESCAPE || c == '%' || c == '_') {
+                escaped.append(ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static class Template {
+        private final String jpql;
+        private final List<Slot> slots;
+
+        private Template(String jpql, List<Slot> slots) {
+            this.jpql = jpql;
+            this.slots = slots;
+        }
+    }
+
+    // 직렬화된 상수 하나가 조건의 어느 값에서 나오는지. 견본 값은 슬롯마다 다르게 골라서 하나로만 맞는다.
+    private enum Slot {
+        USERNAME(MemberSearchCondition::getUsername),
+        USERNAME_PREFIX(condition -> escapeLike(condition.getUsername()) + "%"),
+        USERNAME_CONTAINS(condition -> "%" + escapeLike(condition.getUsername()) + "%"),
+        GRAMS(condition -> UsernameGrams.of(condition.getUsername())),
+        GRAM_COUNT(condition -> (long) UsernameGrams.of(condition.getUsername()).size()),
+        TEAM_NAME(MemberSearchCondition::getTeamName),
+        AGE_GOE(MemberSearchCondition::getAgeGoe),
+        AGE_LOE(MemberSearchCondition::getAgeLoe);
+
+        private final Function<MemberSearchCondition, Object> value;
+
+        Slot(Function<MemberSearchCondition, Object> value) {
+            this.value = value;
+        }
+
+        Object value(MemberSearchCondition condition) {
+            return value.apply(condition);
+        }
+
+        static Slot of(Object constant, MemberSearchCondition sample, String jpql) {
+            Slot found = null;
+            for (Slot slot : values()) {
+                if (sample.getUsername() == null && slot.ordinal() <= GRAM_COUNT.ordinal()) {
+                    continue;
+                }
+                if (constant.equals(slot.value(sample))) {
+                    if (found != null) {
+                        throw new IllegalStateException("Ambiguous constant " + constant + " in " + jpql);
+                    }
+                    found = slot;
+                }
+            }
+            if (found == null) {
+                throw new IllegalStateException("Unknown constant " + constant + " in " + jpql);
+            }
+            return found;
+        }
+    }
+}
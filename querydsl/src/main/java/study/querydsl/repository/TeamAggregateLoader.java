@@ -0,0 +1,84 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import study.querydsl.domain.QMember;
+import study.querydsl.dto.QTeamMemberDto;
+import study.querydsl.dto.QTeamMembersDto;
+import study.querydsl.dto.TeamMemberDto;
+import study.querydsl.dto.TeamMembersDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.domain.QTeam.team;
+
+/**
+ * 팀과 소속 회원을 dto 트리로 읽는다. team.getMembers()를 팀마다 초기화하면 팀 수만큼 쿼리가 나가므로
+ * 팀을 먼저 읽고 회원은 team_id in (...)으로 batchSize개 팀씩 한 번에 읽는다.
+ * in 목록은 hibernate.query.in_clause_parameter_padding으로 2의 거듭제곱 길이로 채워져 실행 계획을 재사용한다.
+ */
+@Repository
+public class TeamAggregateLoader {
+    private final JPAQueryFactory query;
+    private final int batchSize;
+    private QMember member = new QMember("member1");
+
+    public TeamAggregateLoader(JPAQueryFactory query,
+                               @Value("${member.team-aggregate.batch-size:512}") int batchSize) {
+        this.query = query;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // team_id 순으로 돌려준다. 없는 id는 건너뛴다.
+    public List<TeamMembersDto> load(Collection<Long> teamIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(teamIds));
+        List<TeamMembersDto> teams = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            teams.addAll(query
+                    .select(new QTeamMembersDto(team.id, team.name))
+                    .from(team)
+                    .where(team.id.in(chunk))
+                    .fetch());
+        }
+        teams.sort((a, b) -> a.getTeamId().compareTo(b.getTeamId()));
+        return attachMembers(teams);
+    }
+
+    public List<TeamMembersDto> loadAll() {
+        return attachMembers(query
+                .select(new QTeamMembersDto(team.id, team.name))
+                .from(team)
+                .orderBy(team.id.asc())
+                .fetch());
+    }
+
+    private List<TeamMembersDto> attachMembers(List<TeamMembersDto> teams) {
+        Map<Long, TeamMembersDto> byId = new LinkedHashMap<>();
+        for (TeamMembersDto dto : teams) {
+            byId.put(dto.getTeamId(), dto);
+        }
+
+        List<Long> ids = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            List<Tuple> rows = query
+                    .select(member.team.id, new QTeamMemberDto(member.id, member.username, member.age))
+                    .from(member)
+                    .where(member.team.id.in(chunk))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            for (Tuple row : rows) {
+                byId.get(row.get(member.team.id)).getMembers().add(row.get(1, TeamMemberDto.class));
+            }
+        }
+        return teams;
+    }
+}
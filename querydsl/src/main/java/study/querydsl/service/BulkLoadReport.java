@@ -0,0 +1,30 @@
+package study.querydsl.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+@Getter
+@ToString
+public class BulkLoadReport {
+
+    private final long members;
+    private final long teams;
+    private final long elapsedNanos;
+
+    public BulkLoadReport(long members, long teams, long elapsedNanos) {
+        this.members = members;
+        this.teams = teams;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    // 걸린 시간을 잴 수 없으면 처리량도 알 수 없으므로 0이다.
+    public double getRowsPerSecond() {
+        return elapsedNanos <= 0 ? 0 : (members + teams) * 1_000_000_000.0 / elapsedNanos;
+    }
+}
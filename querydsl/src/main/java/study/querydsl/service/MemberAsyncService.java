@@ -0,0 +1,53 @@
+package study.querydsl.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSortKey;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJPARepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 리포지토리 조회의 비동기 버전. dbExecutor 스레드에서 각자 읽기 전용 트랜잭션을 열고 실행하므로
+ * 서로 독립적인 조회를 동시에 보내고 가장 느린 조회만큼만 기다리면 된다.
+ * 호출한 쪽의 트랜잭션은 다른 스레드로 넘어가지 않아서, 커밋 전 변경은 보이지 않는다.
+ * dbExecutor 큐가 차 있으면 호출 시점에 TaskRejectedException이 난다.
+ */
+@Service
+@Async("dbExecutor")
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberAsyncService {
+    private final MemberRepository memberRepository;
+    private final MemberJPARepository memberJPARepository;
+
+    public CompletableFuture<List<MemberTeamDto>> searchAsync(MemberSearchCondition condition) {
+        return CompletableFuture.completedFuture(memberRepository.search(condition));
+    }
+
+    public CompletableFuture<Page<MemberTeamDto>> searchPageAsync(MemberSearchCondition condition, Pageable pageable) {
+        return CompletableFuture.completedFuture(memberRepository.searchPage(condition, pageable));
+    }
+
+    public CompletableFuture<Slice<MemberTeamDto>> searchByCursorAsync(MemberSearchCondition condition, Long lastMemberId,
+                                                                       MemberSortKey sortKey, int size) {
+        return CompletableFuture.completedFuture(memberRepository.searchByCursor(condition, lastMemberId, sortKey, size));
+    }
+
+    public CompletableFuture<List<MemberTeamDto>> searchByBuilderAsync(MemberSearchCondition condition) {
+        return CompletableFuture.completedFuture(memberJPARepository.searchByBuilder(condition));
+    }
+
+    public CompletableFuture<Long> countAsync() {
+        return CompletableFuture.completedFuture(memberRepository.count());
+    }
+}
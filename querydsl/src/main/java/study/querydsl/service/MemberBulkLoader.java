@@ -0,0 +1,70 @@
+package study.querydsl.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 대량 회원 적재. id는 시퀀스 pooled 방식으로 미리 받아두고, insert는 jdbc batch로 묶어서 보낸다.
+ * flushSize건마다 flush/clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+ */
+@Slf4j
+@Service
+public class MemberBulkLoader {
+    private final EntityManager em;
+    private final TeamRepository teamRepository;
+    private final int flushSize;
+
+    public MemberBulkLoader(EntityManager em, TeamRepository teamRepository,
+                            @Value("${member.bulk-load.flush-size:1000}") int flushSize) {
+        this.em = em;
+        this.teamRepository = teamRepository;
+        this.flushSize = flushSize;
+    }
+
+    // 팀명별 회원 목록을 받는다. 없는 팀은 새로 만든다.
+    @Transactional
+    public BulkLoadReport load(Map<String, List<MemberDto>> membersByTeamName) {
+        long start = System.nanoTime();
+        Map<String, Long> teamIds = new HashMap<>();
+        long teams = 0;
+        for (String teamName : membersByTeamName.keySet()) {
+            Team team = teamRepository.findByName(teamName).orElse(null);
+            if (team == null) {
+                team = new Team(teamName);
+                em.persist(team);
+                teams++;
+            }
+            teamIds.put(teamName, team.getId());
+        }
+
+        long members = 0;
+        for (Map.Entry<String, List<MemberDto>> entry : membersByTeamName.entrySet()) {
+            for (MemberDto memberDto : entry.getValue()) {
+                // clear 이후에는 팀 프록시를 다시 받아서 팀의 members 컬렉션이 계속 커지지 않게 한다.
+                Team team = em.getReference(Team.class, teamIds.get(entry.getKey()));
+                em.persist(new Member(memberDto.getUsername(), memberDto.getAge(), team));
+                if (++members % flushSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+        }
+        em.flush();
+        em.clear();
+
+        BulkLoadReport report = new BulkLoadReport(members, teams, System.nanoTime() - start);
+        log.info("member bulk load {}", report);
+        return report;
+    }
+}
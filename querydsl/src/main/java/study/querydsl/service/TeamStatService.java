@@ -0,0 +1,51 @@
+package study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.QTeamStatDto;
+import study.querydsl.dto.TeamStatDto;
+import study.querydsl.stats.TeamStatMaintainer;
+
+import java.util.List;
+import java.util.Optional;
+
+import static study.querydsl.domain.QTeam.team;
+import static study.querydsl.domain.QTeamStat.teamStat;
+
+/**
+ * 팀별 회원 수, 평균/최소/최대 나이를 team_stat에서 팀 수만큼만 읽는다.
+ * 읽기 전에 밀린 갱신을 반영하므로 readOnly 트랜잭션이 아니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class TeamStatService {
+    private final JPAQueryFactory query;
+    private final TeamStatMaintainer teamStatMaintainer;
+
+    @Transactional
+    public List<TeamStatDto> findAll() {
+        teamStatMaintainer.applyPending();
+        return select()
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+
+    @Transactional
+    public Optional<TeamStatDto> findByTeamName(String teamName) {
+        teamStatMaintainer.applyPending();
+        return Optional.ofNullable(select()
+                .where(team.name.eq(teamName))
+                .fetchOne());
+    }
+
+    private JPAQuery<TeamStatDto> select() {
+        return query
+                .select(new QTeamStatDto(team.id, team.name,
+                        teamStat.memberCount, teamStat.ageSum, teamStat.minAge, teamStat.maxAge))
+                .from(teamStat)
+                .join(team).on(team.id.eq(teamStat.teamId));
+    }
+}
@@ -0,0 +1,136 @@
+package study.querydsl.stats;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.domain.QMember;
+import study.querydsl.event.MemberWriteSubscriber;
+import study.querydsl.event.MemberWriteTracker;
+import study.querydsl.event.MemberWrites;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.domain.QTeam.team;
+import static study.querydsl.domain.QTeamStat.teamStat;
+
+/**
+ * team_stat을 회원 변경에 맞춰 유지한다.
+ * MemberWriteTracker가 모아 준 이 트랜잭션의 변경 중 소속 회원이나 나이가 바뀐 팀만 커밋 직전(마지막 flush 뒤)에 다시 집계한다.
+ * min/max는 빼기로 되돌릴 수 없어서 증감 대신 바뀐 팀을 통째로 다시 센다.
+ * 어떤 회원이 바뀌었는지 모르는 벌크 문장이 나갔으면 전체를 다시 맞춘다.
+ * 스프링 트랜잭션 밖의 변경은 stale로만 남겨두고 다음 조회가 전체를 다시 맞춘다.
+ * stale은 이 JVM 안에서만 보인다. 여러 인스턴스가 같은 DB를 쓰면 다른 인스턴스의 트랜잭션 밖 변경은 알 수 없으므로
+ * member 쓰기는 스프링 트랜잭션 안에서 해야 한다.
+ */
+@Component
+public class TeamStatMaintainer implements MemberWriteSubscriber {
+    private static final int BATCH_SIZE = 500;
+
+    private final MemberWriteTracker memberWriteTracker;
+    private final EntityManager em;
+    private volatile boolean stale = true; // 기존 데이터가 있을 수 있으니 첫 조회에서 한 번 맞춘다.
+    private QMember member = new QMember("member1");
+
+    public TeamStatMaintainer(MemberWriteTracker memberWriteTracker, EntityManager em) {
+        this.memberWriteTracker = memberWriteTracker;
+        this.em = em;
+    }
+
+    @PostConstruct
+    public void register() {
+        memberWriteTracker.subscribe(this);
+    }
+
+    @Override
+    public void beforeCommit(SessionImplementor session, MemberWrites writes) {
+        apply(session, writes, false);
+    }
+
+    @Override
+    public void writtenOutsideTransaction() {
+        stale = true;
+    }
+
+    /**
+     * 조회 전에 부른다. 이 트랜잭션에서 아직 반영하지 않은 변경과 stale 상태를 먼저 반영한다.
+     */
+    public void applyPending() {
+        em.flush();
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        MemberWrites writes = memberWriteTracker.writes(this);
+        if (writes == null) {
+            throw new IllegalStateException("applyPending must be called in a transaction");
+        }
+        boolean all = false;
+        if (stale) {
+            stale = false;
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        stale = true;
+                    }
+                }
+            });
+            all = true;
+        }
+        apply(session, writes, all);
+    }
+
+    private void apply(SessionImplementor session, MemberWrites writes, boolean all) {
+        JPAQueryFactory query = new JPAQueryFactory(session);
+        if (all || writes.isUnknownMembers() || writes.isUnknownMemberTeams()) {
+            reconcileAll(query);
+        } else {
+            List<Long> ids = new ArrayList<>(writes.getMemberTeamIds());
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                recompute(query, ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+            }
+        }
+        writes.clear();
+    }
+
+    private void recompute(JPAQueryFactory query, List<Long> teamIds) {
+        // 같은 팀을 동시에 다시 집계하지 않도록 팀 행을 잠근다.
+        query.select(team.id)
+                .from(team)
+                .where(team.id.in(teamIds))
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch();
+        query.delete(teamStat)
+                .where(teamStat.teamId.in(teamIds))
+                .execute();
+        query.insert(teamStat)
+                .columns(teamStat.teamId, teamStat.memberCount, teamStat.ageSum, teamStat.minAge, teamStat.maxAge)
+                .select(JPAExpressions
+                        .select(member.team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                        .from(member)
+                        .where(member.team.id.in(teamIds))
+                        .groupBy(member.team.id))
+                .execute();
+    }
+
+    private void reconcileAll(JPAQueryFactory query) {
+        // recompute와 같은 팀 행 잠금을 전부 잡아서, 동시에 도는 다시 맞추기끼리 같은 키를 넣지 않게 한다.
+        query.select(team.id)
+                .from(team)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .fetch();
+        query.delete(teamStat).execute();
+        query.insert(teamStat)
+                .columns(teamStat.teamId, teamStat.memberCount, teamStat.ageSum, teamStat.minAge, teamStat.maxAge)
+                .select(JPAExpressions
+                        .select(member.team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                        .from(member)
+                        .where(member.team.isNotNull())
+                        .groupBy(member.team.id))
+                .execute();
+    }
+}
@@ -0,0 +1,124 @@
+package study.querydsl.cache;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemberSearchCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<MemberTeamDto> load() {
+        loads.incrementAndGet();
+        return new ArrayList<>(List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA")));
+    }
+
+    // 리포지토리는 MemberSearchNormalizer로 맞춘 조건으로 조회하므로 두 조건의 DB 결과도 같다.
+    @Test
+    public void blankAndNullAreSameKey() throws Exception{
+        //given
+        MemberSearchCache cache = new MemberSearchCache(10, Duration.ofMinutes(1), Duration.ZERO);
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setUsername(" ");
+        blank.setTeamName("teamA ");
+        MemberSearchCondition empty = new MemberSearchCondition();
+        empty.setTeamName("teamA");
+
+        //when
+        cache.get(blank, this::load);
+        cache.get(empty, this::load);
+
+        //then
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.stats().getHits(), 1);
+        assertEquals(cache.stats().getHitRatio(), 0.5);
+    }
+
+    @Test
+    public void hitsReturnCopies() throws Exception{
+        //given
+        MemberSearchCache cache = new MemberSearchCache(10, Duration.ofMinutes(1), Duration.ZERO);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        List<MemberTeamDto> first = cache.get(condition, this::load);
+
+        //when
+        first.get(0).setUsername("changed");
+        first.clear();
+        List<MemberTeamDto> second = cache.get(condition, this::load);
+
+        //then
+        assertEquals(loads.get(), 1);
+        assertEquals(second.size(), 1);
+        assertEquals(second.get(0).getUsername(), "member1");
+    }
+
+    @Test
+    public void evictBySizeAndInvalidate() throws Exception{
+        //given
+        MemberSearchCache cache = new MemberSearchCache(1, Duration.ofMinutes(1), Duration.ZERO);
+        MemberSearchCondition ageA = new MemberSearchCondition();
+        ageA.setAgeGoe(10);
+        MemberSearchCondition ageB = new MemberSearchCondition();
+        ageB.setAgeGoe(20);
+
+        //when
+        cache.get(ageA, this::load);
+        cache.get(ageB, this::load);
+        cache.get(ageA, this::load);
+        cache.invalidateAll();
+        cache.get(ageA, this::load);
+
+        //then
+        assertEquals(loads.get(), 4);
+        assertEquals(cache.stats().getSize(), 1);
+        assertEquals(cache.stats().getMissRatio(), 1.0);
+    }
+
+    @Test
+    public void expireByTtl() throws Exception{
+        //given
+        MemberSearchCache cache = new MemberSearchCache(10, Duration.ofMillis(1), Duration.ZERO);
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        cache.get(condition, this::load);
+        Thread.sleep(5);
+        cache.get(condition, this::load);
+
+        //then
+        assertEquals(loads.get(), 2);
+    }
+
+    @Test
+    public void detectWriteStatements() throws Exception{
+        assertTrue(MemberCacheInvalidationListener.isMemberOrTeamWrite("update member set age=age+1"));
+        assertTrue(MemberCacheInvalidationListener.isMemberOrTeamWrite("insert into team (name, team_id) values (?, ?)"));
+        assertTrue(MemberCacheInvalidationListener.isMemberOrTeamWrite("delete from member where age>?"));
+        assertFalse(MemberCacheInvalidationListener.isMemberOrTeamWrite("select member0_.member_id from member member0_"));
+        assertFalse(MemberCacheInvalidationListener.isMemberOrTeamWrite("insert into team_stat (team_id) values (?)"));
+    }
+
+    @Test
+    public void skipStoreWithinReplicaLag() throws Exception{
+        //given
+        MemberSearchCache cache = new MemberSearchCache(10, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        cache.markDirty();
+        cache.get(condition, this::load);
+        cache.get(condition, this::load);
+
+        //then
+        // 무효화 직후 replica에서 읽은 결과일 수 있으므로 넣지 않는다.
+        assertEquals(loads.get(), 2);
+        assertEquals(cache.stats().getSize(), 0);
+    }
+}
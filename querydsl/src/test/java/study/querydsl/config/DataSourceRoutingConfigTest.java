@@ -0,0 +1,111 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// replica url을 비워 같은 H2에 풀만 따로 연다. 커밋된 데이터를 읽어야 하므로 끝나면 지운다.
+// 어느 풀이 커넥션을 빌려줬는지 세므로 replica 주기 확인은 끈다.
+@SpringBootTest(properties = {
+        "member.datasource.routing.enabled=true",
+        "member.datasource.routing.sticky-window=1m",
+        "member.datasource.routing.health-check-interval=0s"
+})
+class DataSourceRoutingConfigTest {
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @AfterEach
+    public void after() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void readOnlySearchSeesCommittedWrites() throws Exception{
+        //given
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+        });
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        //then
+        assertTrue(dataSource.unwrap(LazyConnectionDataSourceProxy.class).getTargetDataSource() instanceof ReadWriteRoutingDataSource);
+        assertEquals(result.size(), 2);
+    }
+
+    @Test
+    public void readOnlyTransactionOnOtherThreadUsesReplica() throws Exception{
+        //given
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Team("teamA")));
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        ReadWriteRoutingDataSource routing = (ReadWriteRoutingDataSource) dataSource
+                .unwrap(LazyConnectionDataSourceProxy.class).getTargetDataSource();
+        ExecutorService otherThread = Executors.newSingleThreadExecutor();
+
+        //when
+        String onWritingThread = readOnly.execute(status -> readTeamsAndServedBy(routing));
+        String onOtherThread;
+        try {
+            onOtherThread = otherThread.submit(() -> readOnly.execute(status -> readTeamsAndServedBy(routing))).get();
+        } finally {
+            otherThread.shutdown();
+        }
+
+        //then
+        assertEquals(onWritingThread, "primary");
+        assertEquals(onOtherThread, "replica");
+    }
+
+    // 트랜잭션이 잡고 있는 커넥션을 빌려준 풀의 이름
+    private String readTeamsAndServedBy(ReadWriteRoutingDataSource routing) {
+        assertEquals(em.createQuery("select t from Team t", Team.class).getResultList().size(), 1);
+        for (ReadWriteRoutingDataSource.Target target : ReadWriteRoutingDataSource.Target.values()) {
+            HikariDataSource pool = (HikariDataSource) routing.getResolvedDataSources().get(target);
+            if (pool.getHikariPoolMXBean() != null && pool.getHikariPoolMXBean().getActiveConnections() > 0) {
+                return pool.getPoolName();
+            }
+        }
+        return "none";
+    }
+}
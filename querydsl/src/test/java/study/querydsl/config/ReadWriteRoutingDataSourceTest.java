@@ -0,0 +1,128 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// H2 인메모리 DB 두 개를 primary/replica로 두고 어느 쪽에서 읽었는지 본다.
+class ReadWriteRoutingDataSourceTest {
+    private final SwitchableDataSource primary = new SwitchableDataSource("jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1");
+    private final SwitchableDataSource replica = new SwitchableDataSource("jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1");
+    private ReadWriteRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    public void before() throws Exception{
+        initNode(primary, "primary");
+        initNode(replica, "replica");
+
+        // 주기 확인은 끄고 checkReplica()를 직접 부른다.
+        routing = new ReadWriteRoutingDataSource(primary, replica, Duration.ZERO, Duration.ofMinutes(1));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void after() throws Exception{
+        routing.close();
+    }
+
+    @Test
+    public void routeByReadOnlyFlag() throws Exception{
+        assertEquals(readOnly.execute(status -> node()), "replica");
+        assertEquals(readWrite.execute(status -> node()), "primary");
+        assertEquals(node(), "primary");
+    }
+
+    @Test
+    public void fallBackToPrimaryWhileReplicaIsDown() throws Exception{
+        //given
+        replica.down = true;
+
+        //when
+        String whileDown = readOnly.execute(status -> node());
+        boolean healthyWhileDown = routing.isReplicaHealthy();
+        replica.down = false;
+        boolean recovered = routing.checkReplica();
+
+        //then
+        assertEquals(whileDown, "primary");
+        assertFalse(healthyWhileDown);
+        assertTrue(recovered);
+        assertEquals(readOnly.execute(status -> node()), "replica");
+    }
+
+    @Test
+    public void readYourWritesOnSameThread() throws Exception{
+        //given
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("update node set name = name"));
+
+        //when
+        String sameThread = readOnly.execute(status -> node());
+        String otherThread = CompletableFuture.supplyAsync(() -> readOnly.execute(status -> node())).get();
+
+        //then
+        assertEquals(sameThread, "primary");
+        assertEquals(otherThread, "replica");
+    }
+
+    @Test
+    public void rolledBackWriteIsNotSticky() throws Exception{
+        //given
+        readWrite.executeWithoutResult(status -> {
+            jdbcTemplate.update("update node set name = name");
+            status.setRollbackOnly();
+        });
+
+        //when
+        String result = readOnly.execute(status -> node());
+
+        //then
+        assertEquals(result, "replica");
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static void initNode(SwitchableDataSource dataSource, String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(10))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node values (?)", name);
+    }
+
+    private static class SwitchableDataSource extends DriverManagerDataSource {
+        private volatile boolean down;
+
+        private SwitchableDataSource(String url) {
+            super(url, "sa", "");
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("down");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// export는 별도 스레드의 트랜잭션에서 읽으므로 데이터를 커밋하고 끝나면 지운다.
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member,2", 20, teamA));
+            em.persist(new Member("member3", 30, null));
+        });
+    }
+
+    @AfterEach
+    public void after() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void exportNdjson() throws Exception{
+        //when
+        MvcResult mvcResult = mockMvc.perform(get("/v1/members/export").param("teamName", "teamA"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(mvcResult)).andReturn().getResponse().getContentAsString();
+
+        //then
+        String[] lines = body.split("\n");
+        assertEquals(lines.length, 2);
+        assertTrue(lines[0].contains("\"username\":\"member1\""));
+        assertTrue(lines[1].contains("\"teamName\":\"teamA\""));
+    }
+
+    @Test
+    public void exportCsv() throws Exception{
+        //when
+        MvcResult mvcResult = mockMvc.perform(get("/v1/members/export").param("format", "csv").param("ageGoe", "20"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(mvcResult)).andReturn().getResponse().getContentAsString();
+
+        //then
+        String[] lines = body.split("\n");
+        assertEquals(lines.length, 3);
+        assertEquals(lines[0], "memberId,username,age,teamId,teamName");
+        assertTrue(lines[1].contains(",\"member,2\",20,"));
+        assertTrue(lines[2].endsWith(",member3,30,,"));
+    }
+
+    @Test
+    public void exportCsvQuotesCarriageReturn() throws Exception{
+        //given
+        transactionTemplate.executeWithoutResult(status -> em.persist(new Member("member\r4", 40, null)));
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(get("/v1/members/export").param("format", "csv").param("ageGoe", "40"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(mvcResult)).andReturn().getResponse().getContentAsString();
+
+        //then
+        assertTrue(body.contains(",\"member\r4\",40,"));
+    }
+
+    @Test
+    public void exportRejectsUnknownFormat() throws Exception{
+        //when, then
+        mockMvc.perform(get("/v1/members/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+}
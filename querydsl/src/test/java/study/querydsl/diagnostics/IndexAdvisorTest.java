@@ -0,0 +1,77 @@
+package study.querydsl.diagnostics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJPARepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "member.index-advisor.enabled=true")
+@Transactional
+class IndexAdvisorTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MemberJPARepository memberRepository;
+
+    @Autowired
+    private IndexAdvisor indexAdvisor;
+
+    @BeforeEach
+    public void before() throws Exception{
+        indexAdvisor.reset();
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void report() throws Exception{
+        //given
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername("member1");
+        memberRepository.searchByBuilder(byUsername);
+        memberRepository.searchByBuilder(byUsername);
+        memberRepository.searchByBuilder(new MemberSearchCondition());
+
+        //when
+        Map<String, IndexAdvisor.Advice> advices = indexAdvisor.report().stream()
+                .collect(Collectors.toMap(IndexAdvisor.Advice::getShape, Function.identity()));
+
+        //then
+        assertEquals(advices.get("username").getCalls(), 2);
+        assertFalse(advices.get("username").isFullScan());
+        assertEquals(advices.get("none").getFullScanTables(), List.of("member"));
+    }
+
+    @Test
+    public void reportWithQuoteInValue() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("o'brien");
+        memberRepository.searchByBuilder(condition);
+
+        //when
+        IndexAdvisor.Advice advice = indexAdvisor.report().get(0);
+
+        //then
+        assertEquals(advice.getShape(), "username");
+        assertFalse(advice.getPlan().startsWith("explain failed"));
+        assertFalse(advice.isFullScan());
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.diagnostics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.QMember;
+import study.querydsl.domain.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.diagnostics.QueryCountAssertions.assertMaxQueries;
+import static study.querydsl.domain.QTeam.team;
+
+@SpringBootTest(properties = {"member.n-plus-one.mode=throw", "member.n-plus-one.threshold=3"})
+@Transactional
+class NPlusOneDetectorTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory query;
+
+    @Autowired
+    private NPlusOneDetector detector;
+
+    private final QMember member = new QMember("member1");
+
+    @BeforeEach
+    public void before() throws Exception{
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            em.persist(new Member("member" + i, 10 + i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void lazyCollectionPerTeamThrows() throws Exception{
+        //given
+        List<Team> teams = query.selectFrom(team).fetch();
+
+        //when, then
+        assertThrows(NPlusOneException.class, () -> teams.forEach(t -> t.getMembers().size()));
+    }
+
+    @Test
+    public void fetchJoinWithinLimit() throws Exception{
+        //when
+        List<Member> members = assertMaxQueries(detector, 1, () -> {
+            List<Member> result = query
+                    .selectFrom(member)
+                    .join(member.team, team).fetchJoin()
+                    .fetch();
+            result.forEach(m -> m.getTeam().getName());
+            return result;
+        });
+
+        //then
+        assertEquals(members.size(), 5);
+    }
+
+    @Test
+    public void lazyLoadOverLimit() throws Exception{
+        //when, then
+        assertThrows(AssertionFailedError.class, () -> assertMaxQueries(detector, 1, () -> {
+            List<Team> teams = query.selectFrom(team).limit(2).fetch();
+            teams.forEach(t -> t.getMembers().size());
+            return teams;
+        }));
+    }
+
+    @Test
+    public void countWhenOff() throws Exception{
+        //given
+        NPlusOneDetector off = new NPlusOneDetector(NPlusOneDetector.Mode.OFF, 3);
+        StatementInformation statement = new StatementInformation(null);
+        statement.setStatementQuery("select team0_.name as name1_1_0_ from team team0_ where team0_.team_id=?");
+
+        //when, then
+        assertThrows(AssertionFailedError.class, () -> assertMaxQueries(off, 1, () -> {
+            for (int i = 0; i < 5; i++) {
+                off.onBeforeAnyExecute(statement);
+            }
+            return null;
+        }));
+    }
+}
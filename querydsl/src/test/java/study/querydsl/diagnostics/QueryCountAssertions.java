@@ -0,0 +1,21 @@
+package study.querydsl.diagnostics;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+// 리포지토리 호출 하나가 실행하는 문장 수의 상한을 검증한다. 지연 로딩까지 보려면 결과를 만지는 코드도 call 안에 둔다.
+public final class QueryCountAssertions {
+    private QueryCountAssertions() {
+    }
+
+    public static <T> T assertMaxQueries(NPlusOneDetector detector, int max, Supplier<T> call) {
+        try (NPlusOneDetector.Scope scope = detector.open()) {
+            T result = call.get();
+            if (scope.getStatementCount() > max) {
+                fail("expected at most " + max + " statements but was " + scope.getStatementCount() + "\n" + scope.summary());
+            }
+            return result;
+        }
+    }
+}
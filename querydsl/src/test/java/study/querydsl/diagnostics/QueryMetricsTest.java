@@ -0,0 +1,118 @@
+package study.querydsl.diagnostics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberBulkRepository;
+import study.querydsl.repository.MemberJPARepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class QueryMetricsTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MemberJPARepository memberJPARepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MemberBulkRepository memberBulkRepository;
+
+    @BeforeEach
+    public void before() throws Exception{
+        meterRegistry.clear();
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchByShape() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeLoe(15);
+
+        //when
+        memberJPARepository.searchByBuilder(condition);
+        memberJPARepository.searchByBuilder(condition);
+
+        //then
+        Timer timer = meterRegistry.get("member.query")
+                .tags("operation", "jpa.searchByBuilder", "shape", "teamName+ageLoe", "outcome", "success")
+                .timer();
+        DistributionSummary statements = meterRegistry.get("member.query.statements")
+                .tags("operation", "jpa.searchByBuilder", "shape", "teamName+ageLoe")
+                .summary();
+        assertEquals(timer.count(), 2);
+        assertEquals(statements.totalAmount(), 2.0);
+    }
+
+    @Test
+    public void searchRowsAndStatements() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        //when
+        memberRepository.search(condition);
+        memberRepository.search(condition);
+
+        //then
+        DistributionSummary rows = meterRegistry.get("member.query.rows")
+                .tags("operation", "repository.search", "shape", "username")
+                .summary();
+        DistributionSummary statements = meterRegistry.get("member.query.statements")
+                .tags("operation", "repository.search", "shape", "username")
+                .summary();
+        assertEquals(rows.count(), 2);
+        assertEquals(rows.totalAmount(), 2.0);
+        // 쓰기가 있었던 트랜잭션이라 캐시를 거치지 않고 매번 한 문장씩 실행한다.
+        assertEquals(statements.max(), 1.0);
+        assertEquals(statements.totalAmount(), 2.0);
+    }
+
+    @Test
+    public void bulkRowsAreAffectedRows() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(20);
+
+        //when
+        long affected = memberBulkRepository.addAge(condition, 1, 1);
+
+        //then
+        DistributionSummary rows = meterRegistry.get("member.query.rows")
+                .tags("operation", "bulk.addAge", "shape", "ageLoe")
+                .summary();
+        DistributionSummary statements = meterRegistry.get("member.query.statements")
+                .tags("operation", "bulk.addAge", "shape", "ageLoe")
+                .summary();
+        assertEquals(affected, 2);
+        assertEquals(rows.totalAmount(), 2.0);
+        assertTrue(statements.totalAmount() >= 5);
+    }
+}
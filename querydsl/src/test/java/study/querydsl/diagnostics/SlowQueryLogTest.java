@@ -0,0 +1,122 @@
+package study.querydsl.diagnostics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJPARepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "member.slow-query.threshold=0ms",
+        "member.slow-query.explain-sample-rate=1.0",
+        "member.slow-query.capacity=5"
+})
+@Transactional
+class SlowQueryLogTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MemberJPARepository memberRepository;
+
+    @Autowired
+    private MemberRepository springDataMemberRepository;
+
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+
+    @BeforeEach
+    public void before() throws Exception{
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+        slowQueryLog.reset();
+    }
+
+    @Test
+    public void captureWithCallerAndPlan() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        //when
+        memberRepository.searchByBuilder(condition);
+
+        //then
+        List<SlowQueryLog.SlowQuery> report = slowQueryLog.report();
+        assertEquals(report.size(), 1);
+        SlowQueryLog.SlowQuery slowQuery = report.get(0);
+        assertEquals(slowQuery.getCaller(), "repository.MemberJPARepository.searchByBuilder");
+        assertFalse(slowQuery.getSql().contains("'member1'"));
+        assertEquals(slowQuery.getParameters(), List.of("member1"));
+
+        // EXPLAIN ANALYZE는 별도 스레드에서 붙는다.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (slowQuery.getPlan() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(slowQuery.getPlan().contains("PUBLIC.IDX_MEMBER_USERNAME"));
+    }
+
+    @Test
+    public void callerSkipsCacheAndDiagnosticsWrappers() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        //when
+        springDataMemberRepository.search(condition);
+
+        //then
+        List<SlowQueryLog.SlowQuery> report = slowQueryLog.report();
+        assertEquals(report.size(), 1);
+        assertEquals(report.get(0).getCaller(), "repository.MemberRepositoryImpl.search");
+        assertEquals(report.get(0).getParameters(), List.of("member1"));
+    }
+
+    @Test
+    public void explainWithQuoteInValue() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("o'brien");
+
+        //when
+        memberRepository.searchByBuilder(condition);
+
+        //then
+        SlowQueryLog.SlowQuery slowQuery = slowQueryLog.report().get(0);
+        assertEquals(slowQuery.getParameters(), List.of("o'brien"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (slowQuery.getPlan() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(slowQuery.getPlan().startsWith("explain failed"));
+    }
+
+    @Test
+    public void keepWorstOnly() throws Exception{
+        //when
+        for (int i = 0; i < 20; i++) {
+            memberRepository.searchByBuilder(new MemberSearchCondition());
+        }
+
+        //then
+        List<SlowQueryLog.SlowQuery> report = slowQueryLog.report();
+        assertEquals(report.size(), 5);
+        for (int i = 1; i < report.size(); i++) {
+            assertTrue(report.get(i - 1).getElapsedNanos() >= report.get(i).getElapsedNanos());
+        }
+    }
+}
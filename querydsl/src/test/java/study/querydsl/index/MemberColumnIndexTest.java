@@ -0,0 +1,234 @@
+package study.querydsl.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.diagnostics.NPlusOneDetector;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchShape;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberBulkRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.diagnostics.QueryCountAssertions.assertMaxQueries;
+
+// 인덱스는 커밋된 변경만 따라가므로 데이터를 커밋하고 끝나면 지운다.
+@SpringBootTest(properties = "member.column-index.enabled=true")
+class MemberColumnIndexTest {
+    private static final List<String> USERNAMES = Arrays.asList(null, "member3", "shared", "nobody", "ber1", "ha");
+    private static final List<String> TEAM_NAMES = Arrays.asList(null, "teamA", "teamC", "nowhere");
+    private static final List<Integer> AGES = Arrays.asList(null, 0, 15, 40, 100);
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberColumnIndex memberColumnIndex;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MemberBulkRepository memberBulkRepository;
+
+    @Autowired
+    private NPlusOneDetector detector;
+
+    @BeforeEach
+    public void before() throws Exception{
+        // teamC는 회원이 없고, "shared"는 여러 팀에 있는 이름이다.
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Team("teamC"));
+            for (int i = 0; i < 30; i++) {
+                Team team = i % 3 == 0 ? null : (i % 3 == 1 ? teamA : teamB);
+                em.persist(new Member(i % 4 == 0 ? "shared" : "member" + i, i * 3, team));
+            }
+        });
+        awaitAvailable();
+    }
+
+    @AfterEach
+    public void after() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void sameAsDatabaseForEveryCondition() throws Exception{
+        assertEquals(memberColumnIndex.size(), 30);
+        assertSameAsDatabase();
+    }
+
+    @Test
+    public void followsEntityChanges() throws Exception{
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> members = em.createQuery("select m from Member m order by m.id", Member.class).getResultList();
+            Team teamC = em.createQuery("select t from Team t where t.name = 'teamC'", Team.class).getSingleResult();
+            members.get(0).changeAge(99);
+            members.get(1).changeTeam(teamC);
+            members.get(2).changeTeam(teamC);
+            em.remove(members.get(3));
+            em.persist(new Member("member3", 15, null));
+        });
+
+        //then
+        // 커밋한 스레드는 자기 변경이 반영될 때까지 인덱스를 쓰지 않는다.
+        awaitAvailable();
+        assertEquals(memberColumnIndex.size(), 30);
+        assertSameAsDatabase();
+    }
+
+    @Test
+    public void reloadAfterBulk() throws Exception{
+        //when
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        memberBulkRepository.addAge(condition, 7, 4);
+        condition.setTeamName("teamB");
+        memberBulkRepository.delete(condition, 4);
+
+        //then
+        awaitAvailable();
+        assertEquals(memberColumnIndex.size(), 20);
+        assertSameAsDatabase();
+    }
+
+    @Test
+    public void repositorySearchWithoutQuery() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+
+        //when
+        List<MemberTeamDto> result = assertMaxQueries(detector, 0, () -> memberRepository.search(condition));
+
+        //then
+        assertEquals(result, expected(condition));
+    }
+
+    @Test
+    public void ownWritesFromDatabase() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("newcomer");
+
+        //when
+        List<MemberTeamDto> result = transactionTemplate.execute(status -> {
+            em.persist(new Member("newcomer", 20, null));
+            assertFalse(memberColumnIndex.isAvailable());
+            List<MemberTeamDto> found = memberRepository.search(condition);
+            status.setRollbackOnly();
+            return found;
+        });
+
+        //then
+        assertEquals(result.size(), 1);
+        assertTrue(memberColumnIndex.isAvailable());
+        assertTrue(memberColumnIndex.search(condition).isEmpty());
+    }
+
+    @Test
+    public void dirtyEntitiesFromDatabase() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(500);
+
+        //when
+        List<MemberTeamDto> result = transactionTemplate.execute(status -> {
+            Member member = em.createQuery("select m from Member m order by m.id", Member.class)
+                    .setMaxResults(1)
+                    .getSingleResult();
+            member.changeAge(500);
+            assertFalse(memberColumnIndex.isAvailable());
+            List<MemberTeamDto> found = memberRepository.search(condition);
+            status.setRollbackOnly();
+            return found;
+        });
+
+        //then
+        assertEquals(result.size(), 1);
+        assertTrue(memberColumnIndex.search(condition).isEmpty());
+    }
+
+    @Test
+    public void cleanEntitiesKeepIndex() throws Exception{
+        //when
+        boolean[] available = transactionTemplate.execute(status -> {
+            em.createQuery("select m from Member m", Member.class).getResultList();
+            boolean clean = memberColumnIndex.isAvailable();
+            em.persist(new Team("teamX"));
+            boolean persisted = memberColumnIndex.isAvailable();
+            status.setRollbackOnly();
+            return new boolean[]{clean, persisted};
+        });
+
+        //then
+        assertTrue(available[0]);
+        assertFalse(available[1]);
+    }
+
+    // 벌크 연산 뒤 전체 적재는 별도 스레드에서 돈다.
+    private void awaitAvailable() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!memberColumnIndex.isAvailable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(memberColumnIndex.isAvailable());
+    }
+
+    private void assertSameAsDatabase() {
+        for (MemberSearchShape shape : MemberSearchShape.values()) {
+            for (MemberSearchCondition condition : conditions(shape)) {
+                assertEquals(memberColumnIndex.search(condition), expected(condition), condition.toString());
+            }
+        }
+    }
+
+    private List<MemberTeamDto> expected(MemberSearchCondition condition) {
+        return memberRepository.searchPage(condition, PageRequest.of(0, 1000)).getContent();
+    }
+
+    // 모양마다 채운 필드에 값 후보를 모두 넣어본다. ageGoe > ageLoe 같은 빈 범위도 포함된다.
+    private List<MemberSearchCondition> conditions(MemberSearchShape shape) {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (String username : shape.hasUsername() ? USERNAMES.subList(1, USERNAMES.size()) : USERNAMES.subList(0, 1)) {
+            for (String teamName : shape.hasTeamName() ? TEAM_NAMES.subList(1, TEAM_NAMES.size()) : TEAM_NAMES.subList(0, 1)) {
+                for (Integer ageGoe : shape.hasAgeGoe() ? AGES.subList(1, AGES.size()) : AGES.subList(0, 1)) {
+                    for (Integer ageLoe : shape.hasAgeLoe() ? AGES.subList(1, AGES.size()) : AGES.subList(0, 1)) {
+                        MemberSearchCondition condition = new MemberSearchCondition();
+                        condition.setUsername(username);
+                        condition.setUsernameMatch(shape.usernameMatch());
+                        condition.setTeamName(teamName);
+                        condition.setAgeGoe(ageGoe);
+                        condition.setAgeLoe(ageLoe);
+                        conditions.add(condition);
+                    }
+                }
+            }
+        }
+        return conditions;
+    }
+}
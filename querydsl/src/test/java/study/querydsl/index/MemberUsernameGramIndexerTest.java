@@ -0,0 +1,171 @@
+package study.querydsl.index;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.QMember;
+import study.querydsl.domain.QMemberUsernameGram;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.event.MemberWriteTracker;
+import study.querydsl.repository.MemberJPARepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberUsernameGramIndexerTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory query;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private MemberJPARepository memberJPARepository;
+
+    @Autowired
+    private MemberWriteTracker memberWriteTracker;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final QMember member = new QMember("member1");
+    private final QMemberUsernameGram usernameGram = QMemberUsernameGram.memberUsernameGram;
+    private Member kimchi;
+
+    @BeforeEach
+    public void before() throws Exception{
+        em.persist(new Member("alice kim", 10, null));
+        em.persist(new Member("bob kim", 20, null));
+        kimchi = new Member("kimchi", 30, null);
+        em.persist(kimchi);
+        em.persist(new Member("ki%m", 40, null));
+        em.persist(new Member("ab", 50, null));
+    }
+
+    @Test
+    public void containsUsesGramIndex() throws Exception{
+        //given
+        MemberSearchCondition condition = condition("kim", UsernameMatch.CONTAINS);
+
+        //when
+        List<String> result = usernames(memberRepository.search(condition));
+
+        //then
+        assertEquals(result, Arrays.asList("alice kim", "bob kim", "kimchi"));
+        assertEquals(usernames(memberRepository.searchPage(condition, PageRequest.of(0, 10)).getContent()), result);
+        assertEquals(usernames(memberJPARepository.searchByBuilder(condition)), result);
+        assertEquals(query.select(usernameGram.gram).from(usernameGram)
+                .where(usernameGram.member.id.eq(kimchi.getId()))
+                .orderBy(usernameGram.gram.asc())
+                .fetch(), Arrays.asList("chi", "imc", "kim", "mch"));
+    }
+
+    @Test
+    public void prefixAndShortFragments() throws Exception{
+        //when
+        List<String> prefix = usernames(memberRepository.search(condition("ki", UsernameMatch.PREFIX)));
+        List<String> shortContains = usernames(memberRepository.search(condition("b", UsernameMatch.CONTAINS)));
+        List<String> wildcard = usernames(memberRepository.search(condition("%", UsernameMatch.CONTAINS)));
+
+        //then
+        assertEquals(prefix, Arrays.asList("ki%m", "kimchi"));
+        assertEquals(shortContains, Arrays.asList("ab", "bob kim"));
+        assertEquals(wildcard, Arrays.asList("ki%m"));
+    }
+
+    @Test
+    public void renameReplacesGrams() throws Exception{
+        //given
+        memberRepository.search(condition("kim", UsernameMatch.CONTAINS));
+
+        //when
+        kimchi.changeUsername("bibimbap");
+        List<String> oldName = usernames(memberRepository.search(condition("chi", UsernameMatch.CONTAINS)));
+        List<String> newName = usernames(memberRepository.search(condition("imba", UsernameMatch.CONTAINS)));
+
+        //then
+        assertEquals(oldName.size(), 0);
+        assertEquals(newName, Arrays.asList("bibimbap"));
+    }
+
+    @Test
+    public void deleteCascadesGrams() throws Exception{
+        //given
+        em.flush();
+
+        //when
+        em.remove(kimchi);
+        em.flush();
+        query.delete(member).where(member.username.eq("bob kim")).execute();
+
+        //then
+        assertEquals(query.select(usernameGram.member.id).from(usernameGram).where(usernameGram.gram.eq("kim")).fetch().size(), 1);
+        assertEquals(usernames(memberRepository.search(condition("kim", UsernameMatch.CONTAINS))), Arrays.asList("alice kim"));
+    }
+
+    // 커밋 직전에 다시 만들므로 커밋하고, 확인한 뒤 지운다.
+    @Test
+    public void bulkRenameRebuildsOnlyReportedMembers() throws Exception{
+        //given
+        em.flush();
+        Long aliceId = query.select(member.id).from(member).where(member.username.eq("alice kim")).fetchOne();
+        // 전체를 다시 만들면 사라지는 표시
+        em.createNativeQuery("update member_username_gram set gram = 'zzz' where member_id = ? and gram = 'ali'")
+                .setParameter(1, aliceId)
+                .executeUpdate();
+
+        //when
+        memberWriteTracker.reporting(List.of(kimchi.getId()), () -> query
+                .update(member)
+                .set(member.username, "bibimbap")
+                .where(member.id.eq(kimchi.getId()))
+                .execute());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        List<String> renamed = transactionTemplate.execute(status -> grams(kimchi.getId()));
+        List<String> untouched = transactionTemplate.execute(status -> grams(aliceId));
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+
+        //then
+        assertEquals(renamed, Arrays.asList("bap", "bib", "bim", "ibi", "imb", "mba"));
+        assertTrue(untouched.contains("zzz"));
+    }
+
+    private List<String> grams(Long memberId) {
+        return query.select(usernameGram.gram).from(usernameGram)
+                .where(usernameGram.member.id.eq(memberId))
+                .orderBy(usernameGram.gram.asc())
+                .fetch();
+    }
+
+    private MemberSearchCondition condition(String username, UsernameMatch match) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setUsernameMatch(match);
+        return condition;
+    }
+
+    // search는 정렬하지 않으므로 이름 순으로 비교한다.
+    private List<String> usernames(List<MemberTeamDto> result) {
+        return result.stream().map(MemberTeamDto::getUsername).sorted().collect(Collectors.toList());
+    }
+}
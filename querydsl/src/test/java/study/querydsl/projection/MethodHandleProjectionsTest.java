@@ -0,0 +1,100 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.QMember;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.domain.QTeam.team;
+
+@SpringBootTest
+@Transactional
+class MethodHandleProjectionsTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory query;
+
+    private final QMember member = new QMember("member1");
+
+    @BeforeEach
+    public void before() throws Exception{
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void beanSameAsProjectionsBean() throws Exception{
+        //when
+        List<MemberDto> result = query
+                .select(MethodHandleProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        //then
+        List<MemberDto> expected = query
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+        assertEquals(result, expected);
+    }
+
+    @Test
+    public void beanWithAliasAndNull() throws Exception{
+        //when
+        List<MemberDto> result = query
+                .select(MethodHandleProjections.bean(MemberDto.class,
+                        team.name.as("username"),
+                        member.age))
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.age.asc())
+                .fetch();
+
+        //then
+        assertEquals(result.get(0).getUsername(), "teamA");
+        assertNull(result.get(1).getUsername());
+        assertEquals(result.get(1).getAge(), 20);
+    }
+
+    @Test
+    public void constructorSameAsProjectionsConstructor() throws Exception{
+        //when
+        List<MemberTeamDto> result = query
+                .select(MethodHandleProjections.constructor(MemberTeamDto.class,
+                        member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        //then
+        List<MemberTeamDto> expected = query
+                .select(Projections.constructor(MemberTeamDto.class,
+                        member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(member.username.asc())
+                .fetch();
+        assertEquals(result, expected);
+    }
+}
@@ -0,0 +1,140 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 모은 조회는 다른 스레드에서 돌므로 데이터를 커밋하고 끝나면 지운다. 창을 넓혀 동시 요청이 한 번에 묶이게 한다.
+@SpringBootTest(properties = "member.id-lookup.window=100ms")
+class IdLookupLoaderTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private IdLookupLoader idLookupLoader;
+
+    private final List<Long> memberIds = new ArrayList<>();
+    private Long teamId;
+
+    @BeforeEach
+    public void before() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            teamId = teamA.getId();
+            for (int i = 0; i < 20; i++) {
+                Member member = new Member("member" + i, i, i % 2 == 0 ? teamA : null);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void concurrentLookupsShareOneQuery() throws Exception{
+        //given
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        long before = statistics.getPrepareStatementCount();
+        ExecutorService callers = Executors.newFixedThreadPool(memberIds.size());
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        List<Future<MemberTeamDto>> futures = new ArrayList<>();
+        for (Long memberId : memberIds) {
+            futures.add(callers.submit(() -> {
+                start.await();
+                return idLookupLoader.findMember(memberId);
+            }));
+        }
+        start.countDown();
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (Future<MemberTeamDto> future : futures) {
+            result.add(future.get());
+        }
+        callers.shutdown();
+
+        //then
+        for (int i = 0; i < memberIds.size(); i++) {
+            assertEquals(result.get(i).getMemberId(), memberIds.get(i));
+            assertEquals(result.get(i).getUsername(), "member" + i);
+            assertEquals(result.get(i).getTeamName(), i % 2 == 0 ? "teamA" : null);
+        }
+        assertTrue(statistics.getPrepareStatementCount() - before <= 2);
+    }
+
+    @Test
+    public void missingIdsAndTeams() throws Exception{
+        //when
+        CompletableFuture<MemberTeamDto> missing = idLookupLoader.loadMember(-1L);
+        CompletableFuture<MemberTeamDto> found = idLookupLoader.loadMember(memberIds.get(0));
+
+        //then
+        assertNull(missing.get());
+        assertEquals(found.get().getUsername(), "member0");
+        assertEquals(idLookupLoader.findTeam(teamId).getName(), "teamA");
+        assertNull(idLookupLoader.findTeam(-1L));
+    }
+
+    @Test
+    public void writingTransactionSeesOwnWrites() throws Exception{
+        //when
+        MemberTeamDto result = transactionTemplate.execute(status -> {
+            Member member = new Member("uncommitted", 99, null);
+            em.persist(member);
+            em.flush();
+            return idLookupLoader.findMember(member.getId());
+        });
+
+        //then
+        assertEquals(result.getUsername(), "uncommitted");
+    }
+
+    @Test
+    public void readOnlyTransactionLoadsOnCallerThread() throws Exception{
+        //given
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        //when
+        // 모았다면 창(100ms)이 지나기 전에는 끝나지 않는다.
+        CompletableFuture<MemberTeamDto> result = readOnly.execute(status -> idLookupLoader.loadMember(memberIds.get(0)));
+
+        //then
+        assertTrue(result.isDone());
+        assertEquals(result.get().getUsername(), "member0");
+    }
+}
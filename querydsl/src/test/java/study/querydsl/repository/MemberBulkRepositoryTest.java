@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberBulkRepositoryTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MemberBulkRepository memberBulkRepository;
+
+    private Team teamA;
+    private Team teamB;
+
+    @BeforeEach
+    public void before() throws Exception{
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(new Member("member" + i, i * 10, i < 5 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void addAgeInChunks() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        Member member3 = em.createQuery("select m from Member m where m.username = 'member3'", Member.class)
+                .getSingleResult();
+
+        //when
+        long count = memberBulkRepository.addAge(condition, 1, 3);
+
+        //then
+        assertEquals(count, 7);
+        assertEquals(member3.getAge(), 31); // 영속성 컨텍스트의 회원도 새로 읽어온다.
+        assertEquals(em.createQuery("select sum(m.age) from Member m", Long.class).getSingleResult(), 457L);
+    }
+
+    @Test
+    public void addAgeKeepsPendingChanges() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        Member member3 = em.createQuery("select m from Member m where m.username = 'member3'", Member.class)
+                .getSingleResult();
+        member3.changeUsername("renamed");
+
+        //when
+        memberBulkRepository.addAge(condition, 1, 3);
+
+        //then
+        assertEquals(member3.getUsername(), "renamed");
+        assertEquals(member3.getAge(), 31);
+    }
+
+    @Test
+    public void rejectNonPositiveChunkSize() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        InvalidDataAccessApiUsageException e = assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> memberBulkRepository.delete(condition, 0));
+
+        //then
+        assertEquals(e.getCause().getMessage(), "chunkSize must be positive but was 0");
+        assertEquals(em.createQuery("select count(m) from Member m", Long.class).getSingleResult(), 10L);
+    }
+
+    @Test
+    public void changeTeamInChunks() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeLoe(20);
+
+        //when
+        long count = memberBulkRepository.changeTeam(condition, teamB.getId(), 2);
+
+        //then
+        assertEquals(count, 3);
+        assertEquals(em.createQuery("select count(m) from Member m where m.team.name = 'teamB'", Long.class)
+                .getSingleResult(), 8L);
+    }
+
+    @Test
+    public void deleteInChunks() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        Member member9 = em.createQuery("select m from Member m where m.username = 'member9'", Member.class)
+                .getSingleResult();
+
+        //when
+        long count = memberBulkRepository.delete(condition, 4);
+
+        //then
+        assertEquals(count, 5);
+        assertFalse(em.contains(member9));
+        assertEquals(em.createQuery("select count(m) from Member m", Long.class).getSingleResult(), 5L);
+    }
+}
@@ -14,7 +14,10 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -70,4 +73,71 @@ class MemberJPARepositoryTest {
             System.out.println(memberTeamDto);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchWithOneAgeBound() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(25);
+
+        //when
+        List<String> result = usernames(memberRepository.search(condition));
+        List<String> byBuilder = usernames(memberRepository.searchByBuilder(condition));
+
+        //then
+        assertEquals(result, List.of("member3", "member4"));
+        assertEquals(byBuilder, result);
+    }
+
+    @Test
+    public void emptyAgeRange() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(40);
+        condition.setAgeLoe(10);
+
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        long streamed = memberRepository.searchForEach(condition, 10, memberTeamDto -> {});
+
+        //then
+        assertEquals(result.size(), 0);
+        assertEquals(streamed, 0);
+    }
+
+    @Test
+    public void searchStreamTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        //when
+        List<String> usernames;
+        try (Stream<MemberTeamDto> stream = memberRepository.searchStream(condition, 2)) {
+            usernames = stream.map(MemberTeamDto::getUsername).collect(Collectors.toList());
+        }
+
+        //then
+        assertEquals(usernames.size(), 3);
+        assertTrue(usernames.containsAll(List.of("member2", "member3", "member4")));
+    }
+
+    @Test
+    public void searchForEachTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<MemberTeamDto> result = new ArrayList<>();
+
+        //when
+        long count = memberRepository.searchForEach(condition, 1, result::add);
+
+        //then
+        assertEquals(count, 2);
+        assertEquals(result.get(0).getTeamName(), "teamA");
+    }
+
+    private List<String> usernames(List<MemberTeamDto> result) {
+        return result.stream().map(MemberTeamDto::getUsername).sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,100 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 파티션은 각자 커넥션으로 읽으므로 데이터를 커밋하고 끝나면 지운다.
+@SpringBootTest
+class MemberParallelSearchTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberParallelSearch memberParallelSearch;
+
+    @BeforeEach
+    public void before() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 100; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : null));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void searchOrdered() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+
+        //when
+        List<MemberTeamDto> result = memberParallelSearch.search(condition, true);
+
+        //then
+        assertEquals(result.size(), 90);
+        List<Long> ids = result.stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList());
+        assertEquals(ids, ids.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void searchWithTeamName() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeLoe(49);
+
+        //when
+        List<MemberTeamDto> result = memberParallelSearch.search(condition, false);
+
+        //then
+        assertEquals(result.size(), 25);
+        assertTrue(memberParallelSearch.getParallelism() > 1);
+    }
+
+    @Test
+    public void searchInTransactionUsesCallerConnection() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(99);
+
+        //when
+        List<MemberTeamDto> result = transactionTemplate.execute(status -> {
+            em.persist(new Member("uncommitted", 100, null));
+            List<MemberTeamDto> found = memberParallelSearch.search(condition, true);
+            status.setRollbackOnly();
+            return found;
+        });
+
+        //then
+        // 호출한 트랜잭션의 커넥션과 영속성 컨텍스트로 읽으므로 커밋 안 된 회원도 보인다.
+        assertEquals(result.stream().map(MemberTeamDto::getUsername).collect(Collectors.toList()),
+                List.of("member99", "uncommitted"));
+    }
+}
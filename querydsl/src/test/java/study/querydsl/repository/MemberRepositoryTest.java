@@ -0,0 +1,346 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.cache.MemberSearchKey;
+import study.querydsl.diagnostics.NPlusOneDetector;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchShape;
+import study.querydsl.dto.MemberSortKey;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.diagnostics.QueryCountAssertions.assertMaxQueries;
+
+@SpringBootTest
+@Transactional
+class MemberRepositoryTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private NPlusOneDetector detector;
+
+    @BeforeEach
+    public void before() throws Exception{
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchPageTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(0, 3));
+
+        //then
+        assertEquals(result.getContent().size(), 3);
+        assertEquals(result.getTotalElements(), 4);
+        assertEquals(result.getTotalPages(), 2);
+        assertEquals(result.getContent().get(0).getUsername(), "member1");
+    }
+
+    @Test
+    public void searchPageLastPage() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        //when
+        Page<MemberTeamDto> result = memberRepository.searchPage(condition, PageRequest.of(1, 1));
+
+        //then
+        assertEquals(result.getContent().size(), 1);
+        assertEquals(result.getContent().get(0).getUsername(), "member4");
+        assertEquals(result.getTotalElements(), 2);
+        assertTrue(result.isLast());
+    }
+
+    @Test
+    public void searchByCursorTest() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Slice<MemberTeamDto> first = memberRepository.searchByCursor(condition, null, MemberSortKey.ID, 3);
+        Long lastMemberId = first.getContent().get(2).getMemberId();
+
+        //when
+        Slice<MemberTeamDto> second = memberRepository.searchByCursor(condition, lastMemberId, MemberSortKey.ID, 3);
+
+        //then
+        assertTrue(first.hasNext());
+        assertEquals(second.getContent().size(), 1);
+        assertEquals(second.getContent().get(0).getUsername(), "member4");
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    public void searchByCursorRejectsNonPositiveSize() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        // 리포지토리 프록시가 IllegalArgumentException을 스프링 예외로 바꿔 던진다.
+        InvalidDataAccessApiUsageException e = assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> memberRepository.searchByCursor(condition, null, MemberSortKey.ID, 0));
+
+        //then
+        assertTrue(e.getCause() instanceof IllegalArgumentException);
+        assertEquals(e.getCause().getMessage(), "size must be positive but was 0");
+    }
+
+    @Test
+    public void searchByCursorSortByAge() throws Exception{
+        //given
+        em.persist(new Member("member5", 20, null));
+        em.flush();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        Slice<MemberTeamDto> first = memberRepository.searchByCursor(condition, null, MemberSortKey.AGE, 1);
+
+        //when
+        Slice<MemberTeamDto> second = memberRepository.searchByCursor(condition, first.getContent().get(0).getMemberId(), MemberSortKey.AGE, 2);
+
+        //then
+        assertEquals(first.getContent().get(0).getUsername(), "member2");
+        assertEquals(second.getContent().get(0).getUsername(), "member5");
+        assertEquals(second.getContent().get(1).getUsername(), "member3");
+        assertTrue(second.hasNext());
+    }
+
+    @Test
+    public void searchByCursorSortByUsernameKeepsNulls() throws Exception{
+        //given
+        em.persist(new Member(null, 50, null));
+        em.persist(new Member(null, 60, null));
+        em.flush();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        //when
+        List<MemberTeamDto> all = new ArrayList<>();
+        Long lastMemberId = null;
+        Slice<MemberTeamDto> slice;
+        do {
+            slice = memberRepository.searchByCursor(condition, lastMemberId, MemberSortKey.USERNAME, 2);
+            all.addAll(slice.getContent());
+            lastMemberId = all.get(all.size() - 1).getMemberId();
+        } while (slice.hasNext());
+
+        //then
+        assertEquals(usernames(all), Arrays.asList("member1", "member2", "member3", "member4", null, null));
+        assertEquals(all.get(4).getAge(), 50);
+        assertEquals(all.get(5).getAge(), 60);
+    }
+
+    @Test
+    public void searchSeesOwnWrites() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(100);
+        List<MemberTeamDto> before = memberRepository.search(condition);
+
+        //when
+        em.persist(new Member("member5", 50, null));
+        em.flush();
+        List<MemberTeamDto> after = memberRepository.search(condition);
+
+        //then
+        assertEquals(before.size(), 4);
+        assertEquals(after.size(), 5);
+    }
+
+    @Test
+    public void searchEveryShape() throws Exception{
+        for (MemberSearchShape shape : MemberSearchShape.values()) {
+            //given
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if (shape.hasUsername()) condition.setUsername("member3");
+            condition.setUsernameMatch(shape.usernameMatch());
+            if (shape.hasTeamName()) condition.setTeamName("teamB");
+            if (shape.hasAgeGoe()) condition.setAgeGoe(20);
+            if (shape.hasAgeLoe()) condition.setAgeLoe(35);
+
+            //when
+            List<Long> result = memberRepository.search(condition).stream()
+                    .map(MemberTeamDto::getMemberId)
+                    .sorted(Comparator.naturalOrder())
+                    .collect(Collectors.toList());
+
+            //then
+            List<Long> expected = memberRepository.searchPage(condition, PageRequest.of(0, 100)).getContent().stream()
+                    .map(MemberTeamDto::getMemberId)
+                    .collect(Collectors.toList());
+            assertEquals(result, expected, shape.toString());
+        }
+    }
+
+    @Test
+    public void searchAllOneQueryPerDistinctCondition() throws Exception{
+        //given
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("teamA");
+        MemberSearchCondition older = new MemberSearchCondition();
+        older.setAgeGoe(30);
+        MemberSearchCondition prefix = new MemberSearchCondition();
+        prefix.setUsername("member");
+        prefix.setUsernameMatch(UsernameMatch.PREFIX);
+        prefix.setAgeLoe(20);
+        MemberSearchCondition nobody = new MemberSearchCondition();
+        nobody.setUsername("nobody");
+        List<MemberSearchCondition> conditions = Arrays.asList(teamA, older, prefix, nobody, teamA);
+
+        //when
+        List<List<MemberTeamDto>> result = assertMaxQueries(detector, 4, () -> memberRepository.searchAll(conditions));
+
+        //then
+        assertEquals(result.size(), 5);
+        for (int i = 0; i < conditions.size(); i++) {
+            assertEquals(memberIds(result.get(i)), memberIds(memberRepository.search(conditions.get(i))), "condition " + i);
+        }
+        assertEquals(usernames(result.get(0)), Arrays.asList("member1", "member2"));
+        assertEquals(usernames(result.get(1)), Arrays.asList("member3", "member4"));
+        assertEquals(usernames(result.get(2)), Arrays.asList("member1", "member2"));
+        assertEquals(result.get(3).size(), 0);
+    }
+
+    @Test
+    public void searchAllReturnsOwnListPerPosition() throws Exception{
+        //given
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("teamA");
+
+        //when
+        List<List<MemberTeamDto>> result = memberRepository.searchAll(Arrays.asList(teamA, teamA));
+        result.get(0).clear();
+
+        //then
+        assertNotSame(result.get(0), result.get(1));
+        assertEquals(usernames(result.get(1)), Arrays.asList("member1", "member2"));
+    }
+
+    @Test
+    public void searchAllWithEmptyCondition() throws Exception{
+        //given
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        conditions.add(new MemberSearchCondition());
+        for (int age = 0; age < 20; age++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setAgeGoe(age * 2);
+            conditions.add(condition);
+        }
+
+        //when
+        List<List<MemberTeamDto>> result = assertMaxQueries(detector, conditions.size(), () -> memberRepository.searchAll(conditions));
+
+        //then
+        assertEquals(result.get(0).size(), 4);
+        for (int i = 0; i < conditions.size(); i++) {
+            assertEquals(memberIds(result.get(i)), memberIds(memberRepository.search(conditions.get(i))), "condition " + i);
+        }
+    }
+
+    @Test
+    public void searchAllRejectsNullAndTooManyConditions() throws Exception{
+        //given
+        List<MemberSearchCondition> withNull = Arrays.asList(new MemberSearchCondition(), null);
+        List<MemberSearchCondition> tooMany = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            tooMany.add(new MemberSearchCondition());
+        }
+
+        //when, then
+        InvalidDataAccessApiUsageException nullError = assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> memberRepository.searchAll(withNull));
+        assertEquals(nullError.getCause().getMessage(), "conditions must not contain null");
+        InvalidDataAccessApiUsageException sizeError = assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> memberRepository.searchAll(tooMany));
+        assertEquals(sizeError.getCause().getMessage(), "at most 100 conditions but was 101");
+    }
+
+    @Test
+    public void emptyAgeRangeSkipsQuery() throws Exception{
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(50);
+        condition.setAgeLoe(20);
+
+        //when
+        List<MemberTeamDto> result = assertMaxQueries(detector, 0, () -> memberRepository.search(condition));
+        Page<MemberTeamDto> page = assertMaxQueries(detector, 0, () -> memberRepository.searchPage(condition, PageRequest.of(0, 3)));
+        Slice<MemberTeamDto> slice = assertMaxQueries(detector, 0, () -> memberRepository.searchByCursor(condition, null, MemberSortKey.ID, 3));
+        List<List<MemberTeamDto>> all = assertMaxQueries(detector, 0, () -> memberRepository.searchAll(Arrays.asList(condition, condition)));
+
+        //then
+        assertEquals(result.size(), 0);
+        assertEquals(page.getTotalElements(), 0);
+        assertFalse(slice.hasNext());
+        assertEquals(all.size(), 2);
+        assertEquals(all.get(1).size(), 0);
+    }
+
+    @Test
+    public void paddedConditionMatchesTrimmed() throws Exception{
+        //given
+        MemberSearchCondition padded = new MemberSearchCondition();
+        padded.setUsername(" member3 ");
+        padded.setTeamName("teamB ");
+        padded.setAgeGoe(Integer.MIN_VALUE);
+        padded.setAgeLoe(Integer.MAX_VALUE);
+        MemberSearchCondition trimmed = new MemberSearchCondition();
+        trimmed.setUsername("member3");
+        trimmed.setTeamName("teamB");
+
+        //when
+        List<MemberTeamDto> first = memberRepository.search(padded);
+        List<MemberTeamDto> second = memberRepository.search(trimmed);
+
+        //then
+        assertEquals(MemberSearchKey.of(padded), MemberSearchKey.of(trimmed));
+        assertEquals(usernames(first), Arrays.asList("member3"));
+        assertEquals(usernames(second), usernames(first));
+        assertEquals(usernames(memberRepository.searchPage(padded, PageRequest.of(0, 3)).getContent()), Arrays.asList("member3"));
+    }
+
+    private List<Long> memberIds(List<MemberTeamDto> result) {
+        return result.stream().map(MemberTeamDto::getMemberId).sorted().collect(Collectors.toList());
+    }
+
+    private List<String> usernames(List<MemberTeamDto> result) {
+        return result.stream().map(MemberTeamDto::getUsername).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.diagnostics.NPlusOneDetector;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.TeamMemberDto;
+import study.querydsl.dto.TeamMembersDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.diagnostics.QueryCountAssertions.assertMaxQueries;
+
+@SpringBootTest(properties = "member.team-aggregate.batch-size=3")
+@Transactional
+class TeamAggregateLoaderTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TeamAggregateLoader teamAggregateLoader;
+
+    @Autowired
+    private NPlusOneDetector detector;
+
+    private final List<Long> teamIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() throws Exception{
+        // team0은 회원이 없고, teamN은 회원이 N명이다.
+        for (int i = 0; i < 7; i++) {
+            Team team = new Team("team" + i);
+            em.persist(team);
+            teamIds.add(team.getId());
+            for (int j = 0; j < i; j++) {
+                em.persist(new Member("member" + i + "_" + j, 10 + j, team));
+            }
+        }
+        em.persist(new Member("noTeam", 50, null));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void loadAll() throws Exception{
+        //when 팀 1번 + 회원 3번(3팀씩)
+        List<TeamMembersDto> result = assertMaxQueries(detector, 4, () -> teamAggregateLoader.loadAll());
+
+        //then
+        assertEquals(result.size(), 7);
+        for (int i = 0; i < 7; i++) {
+            TeamMembersDto dto = result.get(i);
+            assertEquals(dto.getName(), "team" + i);
+            assertEquals(dto.getMembers().size(), i);
+        }
+        assertEquals(result.get(2).getMembers().stream().map(TeamMemberDto::getUsername).collect(Collectors.toList()),
+                List.of("member2_0", "member2_1"));
+    }
+
+    @Test
+    public void loadByIds() throws Exception{
+        //given
+        List<Long> ids = List.of(teamIds.get(5), teamIds.get(1), teamIds.get(5), -1L);
+
+        //when
+        List<TeamMembersDto> result = assertMaxQueries(detector, 2, () -> teamAggregateLoader.load(ids));
+
+        //then
+        assertEquals(result.stream().map(TeamMembersDto::getName).collect(Collectors.toList()), List.of("team1", "team5"));
+        assertEquals(result.get(1).getMembers().size(), 5);
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydsl.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 2차 캐시는 커밋된 데이터만 담으므로 데이터를 커밋하고 끝나면 지운다.
+@SpringBootTest
+class TeamRepositoryTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TeamRepository teamRepository;
+
+    private Statistics statistics;
+    private Long memberId;
+
+    @BeforeEach
+    public void before() throws Exception{
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        memberId = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            return member1.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void memberTeamFromSecondLevelCache() throws Exception{
+        //given
+        long hits = statistics.getCacheRegionStatistics("team").getHitCount();
+
+        //when
+        String teamName = transactionTemplate.execute(status ->
+                em.find(Member.class, memberId).getTeam().getName());
+
+        //then
+        assertEquals(teamName, "teamA");
+        assertEquals(statistics.getCacheRegionStatistics("team").getHitCount(), hits + 1);
+    }
+
+    @Test
+    public void findByNameFromQueryCache() throws Exception{
+        //given
+        transactionTemplate.execute(status -> teamRepository.findByName("teamA"));
+        long hits = statistics.getQueryCacheHitCount();
+
+        //when
+        Team team = transactionTemplate.execute(status -> teamRepository.findByName("teamA").get());
+
+        //then
+        assertEquals(team.getName(), "teamA");
+        assertEquals(statistics.getQueryCacheHitCount(), hits + 1);
+    }
+}
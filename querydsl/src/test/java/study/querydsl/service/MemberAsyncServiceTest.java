@@ -0,0 +1,115 @@
+package study.querydsl.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// 조회가 다른 스레드에서 실행되므로 데이터를 커밋하고 끝나면 지운다.
+@SpringBootTest
+class MemberAsyncServiceTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MemberAsyncService memberAsyncService;
+
+    @Autowired
+    @Qualifier("dbExecutor")
+    private ThreadPoolTaskExecutor dbExecutor;
+
+    @BeforeEach
+    public void before() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+        });
+    }
+
+    @AfterEach
+    public void after() throws Exception{
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void independentQueriesTogether() throws Exception{
+        //given
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("teamA");
+
+        //when
+        CompletableFuture<List<MemberTeamDto>> search = memberAsyncService.searchAsync(teamA);
+        CompletableFuture<Page<MemberTeamDto>> page = memberAsyncService.searchPageAsync(new MemberSearchCondition(), PageRequest.of(0, 2));
+        CompletableFuture<Long> count = memberAsyncService.countAsync();
+        CompletableFuture.allOf(search, page, count).join();
+
+        //then
+        assertEquals(search.get().size(), 2);
+        assertEquals(page.get().getTotalElements(), 3);
+        assertEquals(count.get(), 3L);
+    }
+
+    @Test
+    public void rejectWhenQueueIsFull() throws Exception{
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            while (true) {
+                try {
+                    dbExecutor.execute(() -> {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                } catch (TaskRejectedException e) {
+                    break;
+                }
+            }
+
+            //when
+            AtomicReference<String> thread = new AtomicReference<>();
+            assertThrows(TaskRejectedException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+                thread.set(Thread.currentThread().getName());
+                memberAsyncService.searchAsync(new MemberSearchCondition());
+            }));
+
+            //then
+            // 호출한 스레드에서 대신 실행하지 않는다.
+            assertFalse(thread.get().startsWith("db-"));
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package study.querydsl.service;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberDto;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "member.bulk-load.flush-size=100")
+@Transactional
+class MemberBulkLoaderTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MemberBulkLoader memberBulkLoader;
+
+    @Autowired
+    private StatementRecorder recorder;
+
+    @Test
+    public void load() throws Exception{
+        //given
+        em.persist(new Team("teamA"));
+        em.flush();
+        em.clear();
+
+        Map<String, List<MemberDto>> membersByTeamName = new LinkedHashMap<>();
+        membersByTeamName.put("teamA", members("a", 150));
+        membersByTeamName.put("teamB", members("b", 100));
+
+        //when
+        recorder.start();
+        BulkLoadReport report = memberBulkLoader.load(membersByTeamName);
+        recorder.stop();
+
+        //then
+        assertEquals(report.getMembers(), 250);
+        assertEquals(report.getTeams(), 1);
+        assertEquals(report.getRowsPerSecond(), 251 * 1_000_000_000.0 / report.getElapsedNanos());
+        assertEquals(new BulkLoadReport(251, 1, 0).getRowsPerSecond(), 0.0);
+        assertEquals(em.createQuery("select count(m) from Member m where m.team.name = 'teamA'", Long.class)
+                .getSingleResult(), 150L);
+        assertEquals(em.createQuery("select count(t) from Team t", Long.class).getSingleResult(), 2L);
+        // id는 50개씩 받아 오고, insert는 flush-size(100)건마다 batch 하나로 나간다.
+        assertEquals(recorder.count(sql -> sql.contains("member_seq")), 6);
+        assertEquals(recorder.count(sql -> sql.startsWith("insert into member (")), 3);
+        assertEquals(recorder.batches(sql -> sql.startsWith("insert into member (")), 3);
+    }
+
+    private List<MemberDto> members(String prefix, int count) {
+        List<MemberDto> members = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            members.add(new MemberDto(prefix + i, i % 60));
+        }
+        return members;
+    }
+
+    @TestConfiguration
+    static class StatementRecorderConfig {
+        @Bean
+        StatementRecorder statementRecorder() {
+            return new StatementRecorder();
+        }
+    }
+
+    // 테스트 스레드에서 실행된 문장만 기록한다. batch는 executeBatch 한 번을 한 문장으로 센다.
+    static class StatementRecorder extends SimpleJdbcEventListener {
+        private final List<String> statements = new ArrayList<>();
+        private final List<String> batches = new ArrayList<>();
+        private volatile Thread recording;
+
+        void start() {
+            statements.clear();
+            batches.clear();
+            recording = Thread.currentThread();
+        }
+
+        void stop() {
+            recording = null;
+        }
+
+        long count(Predicate<String> sql) {
+            return statements.stream().filter(sql).count();
+        }
+
+        long batches(Predicate<String> sql) {
+            return batches.stream().filter(sql).count();
+        }
+
+        @Override
+        public void onBeforeAnyExecute(StatementInformation statementInformation) {
+            record(statements, statementInformation);
+        }
+
+        @Override
+        public void onBeforeExecuteBatch(StatementInformation statementInformation) {
+            record(batches, statementInformation);
+            super.onBeforeExecuteBatch(statementInformation);
+        }
+
+        private void record(List<String> target, StatementInformation statementInformation) {
+            if (recording == Thread.currentThread()) {
+                target.add(statementInformation.getSql().trim().toLowerCase());
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.domain.Member;
+import study.querydsl.domain.QMember;
+import study.querydsl.domain.Team;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.TeamStatDto;
+import study.querydsl.repository.MemberBulkRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static study.querydsl.domain.QTeam.team;
+import static study.querydsl.domain.QTeamStat.teamStat;
+
+@SpringBootTest
+@Transactional
+class TeamStatServiceTest {
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private JPAQueryFactory query;
+
+    @Autowired
+    private TeamStatService teamStatService;
+
+    @Autowired
+    private MemberBulkRepository memberBulkRepository;
+
+    private final QMember member = new QMember("member1");
+    private Team teamA;
+    private Team teamB;
+
+    @BeforeEach
+    public void before() throws Exception{
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+    }
+
+    @Test
+    public void sameAsGroupBy() throws Exception{
+        //when
+        List<TeamStatDto> result = teamStatService.findAll();
+
+        //then
+        assertEquals(result, groupBy());
+        assertEquals(result.get(0).getAvgAge(), 15.0);
+        assertEquals(result.get(1).getMinAge(), 30);
+    }
+
+    @Test
+    public void memberChanges() throws Exception{
+        //given
+        teamStatService.findAll();
+        Member member2 = query.selectFrom(member).where(member.username.eq("member2")).fetchOne();
+        Member member4 = query.selectFrom(member).where(member.username.eq("member4")).fetchOne();
+
+        //when
+        member2.changeAge(25);
+        member4.changeTeam(teamA);
+        em.remove(query.selectFrom(member).where(member.username.eq("member1")).fetchOne());
+        em.persist(new Member("member5", 50, teamB));
+
+        //then
+        List<TeamStatDto> result = teamStatService.findAll();
+        assertEquals(result, groupBy());
+        assertEquals(result.get(0).getMemberCount(), 2);
+        assertEquals(result.get(0).getMinAge(), 25);
+        assertEquals(result.get(1).getMemberCount(), 2);
+    }
+
+    @Test
+    public void reconcileAfterBulk() throws Exception{
+        //given
+        teamStatService.findAll();
+
+        //when
+        query.update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.age.lt(30))
+                .execute();
+        query.delete(member)
+                .where(member.username.eq("member4"))
+                .execute();
+
+        //then
+        TeamStatDto teamAStat = teamStatService.findByTeamName("teamA").get();
+        TeamStatDto teamBStat = teamStatService.findByTeamName("teamB").get();
+        assertEquals(teamAStat.getMinAge(), 11);
+        assertEquals(teamAStat.getMaxAge(), 21);
+        assertEquals(teamBStat.getMemberCount(), 1);
+        assertEquals(teamStatService.findAll(), groupBy());
+    }
+
+    @Test
+    public void reconcileAfterSingleMemberBulkUpdate() throws Exception{
+        //given
+        Member member1 = new Member("member5", 50, teamA);
+        em.persist(member1);
+        teamStatService.findAll();
+
+        //when
+        // sql은 update member set age=? where member_id=? 로 엔티티 update와 모양이 같다.
+        query.update(member)
+                .set(member.age, 5)
+                .where(member.id.eq(member1.getId()))
+                .execute();
+
+        //then
+        assertEquals(teamStatService.findByTeamName("teamA").get().getMinAge(), 5);
+        assertEquals(teamStatService.findAll(), groupBy());
+    }
+
+    @Test
+    public void bulkRepositoryRecomputesAffectedTeamsOnly() throws Exception{
+        //given
+        Team teamC = new Team("teamC");
+        em.persist(teamC);
+        em.persist(new Member("member5", 50, teamC));
+        teamStatService.findAll();
+        // 다시 집계되지 않은 팀은 이 값이 그대로 남는다.
+        query.update(teamStat)
+                .set(teamStat.memberCount, 99L)
+                .where(teamStat.teamId.eq(teamC.getId()))
+                .execute();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //when
+        memberBulkRepository.changeTeam(condition, teamB.getId());
+
+        //then
+        assertTrue(teamStatService.findByTeamName("teamA").isEmpty());
+        assertEquals(teamStatService.findByTeamName("teamB").get().getMemberCount(), 4);
+        assertEquals(teamStatService.findByTeamName("teamC").get().getMemberCount(), 99);
+    }
+
+    @Test
+    public void noMembersNoRow() throws Exception{
+        //when
+        query.delete(member)
+                .where(member.team.eq(teamB))
+                .execute();
+
+        //then
+        assertTrue(teamStatService.findByTeamName("teamB").isEmpty());
+        assertEquals(teamStatService.findAll().size(), 1);
+    }
+
+    // QuerydslBasicTest.group과 같은 방식으로 직접 집계한 값
+    private List<TeamStatDto> groupBy() {
+        em.flush();
+        List<Tuple> rows = query
+                .select(team.id, team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.id, team.name)
+                .orderBy(team.name.asc())
+                .fetch();
+        return rows.stream()
+                .map(row -> new TeamStatDto(row.get(team.id), row.get(team.name), row.get(member.count()),
+                        row.get(member.age.sum()).longValue(), row.get(member.age.min()), row.get(member.age.max())))
+                .collect(Collectors.toList());
+    }
+}